@@ -17,6 +17,10 @@ package com.epam.reportportal.cucumber;
 
 import com.epam.reportportal.annotations.TestCaseId;
 import com.epam.reportportal.annotations.attribute.Attributes;
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import com.epam.reportportal.cucumber.util.BoundedCache;
+import com.epam.reportportal.cucumber.util.MimeTypeSniffer;
+import com.epam.reportportal.cucumber.util.ReportingClock;
 import com.epam.reportportal.listeners.ItemStatus;
 import com.epam.reportportal.listeners.ItemType;
 import com.epam.reportportal.listeners.ListenerParameters;
@@ -29,7 +33,6 @@ import com.epam.reportportal.utils.*;
 import com.epam.reportportal.utils.files.ByteSource;
 import com.epam.reportportal.utils.markdown.MarkdownUtils;
 import com.epam.reportportal.utils.properties.SystemAttributesExtractor;
-import com.epam.reportportal.utils.reflect.Accessible;
 import com.epam.ta.reportportal.ws.model.FinishExecutionRQ;
 import com.epam.ta.reportportal.ws.model.FinishTestItemRQ;
 import com.epam.ta.reportportal.ws.model.ParameterResource;
@@ -37,7 +40,6 @@ import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
 import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
 import com.epam.ta.reportportal.ws.model.launch.StartLaunchRQ;
 import io.cucumber.core.internal.gherkin.ast.Feature;
-import io.cucumber.core.internal.gherkin.ast.Step;
 import io.cucumber.core.internal.gherkin.ast.Tag;
 import io.cucumber.plugin.ConcurrentEventListener;
 import io.cucumber.plugin.event.*;
@@ -53,11 +55,13 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static com.epam.reportportal.cucumber.Utils.*;
 import static com.epam.reportportal.cucumber.util.ItemTreeUtils.createKey;
@@ -80,10 +84,11 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	private static final URI WORKING_DIRECTORY = new File(System.getProperty("user.dir")).toURI();
 	private static final String AGENT_PROPERTIES_FILE = "agent.properties";
 	private static final String HOOK_ = "Hook: ";
-	private static final String GET_LOCATION_METHOD_NAME = "getLocation";
-	private static final String METHOD_OPENING_BRACKET = "(";
-	private static final String STEP_DEFINITION_FIELD_NAME = "stepDefinition";
 	private static final String DOCSTRING_DECORATOR = "\n\"\"\"\n";
+	private static final int TEST_CASE_ID_CACHE_SIZE = 10_000;
+	private static final String TEST_CASE_ID_TEMPLATE_START = "{";
+	private static final int PARAMETER_NAME_CACHE_SIZE = 10_000;
+	private static final int MEDIA_TYPE_CACHE_SIZE = 1_000;
 
 	public static final TestItemTree ITEM_TREE = new TestItemTree();
 	private static volatile ReportPortal REPORT_PORTAL = ReportPortal.builder().build();
@@ -91,17 +96,68 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	protected Supplier<Launch> launch;
 	static final String COLON_INFIX = ": ";
 	private static final String SKIPPED_ISSUE_KEY = "skippedIssue";
+	private static final String DEDUPLICATION_SAVED_BYTES_KEY = "deduplicatedBytes";
 
-	private final Map<URI, RunningContext.FeatureContext> currentFeatureContextMap = new ConcurrentHashMap<>();
-	private final Map<Pair<Integer, URI>, RunningContext.ScenarioContext> currentScenarioContextMap = new ConcurrentHashMap<>();
+	// Running features by their IDs, running scenarios are kept by their lines inside feature contexts.
+	// There is no event for recognizing end of feature in Cucumber, so feature contexts also record the last scenario
+	// end time. End of feature occurs once its last scenario is finished, or once launch is finished for the rest.
+	// A feature is published once as a future, so its item is started outside of any lock and other scenarios of the
+	// feature wait only for their own feature.
+	private final FeatureRegistry<CompletableFuture<RunningContext.FeatureContext>> features = new FeatureRegistry<>();
 
-	// There is no event for recognizing end of feature in Cucumber.
-	// This map is used to record the last scenario time and its feature uri.
-	// End of feature occurs once launch is finished.
-	private final Map<URI, Date> featureEndTime = new ConcurrentHashMap<>();
+	// Running scenarios by their test cases, so events of a scenario may arrive on any thread
+	private final Map<TestCase, RunningContext.ScenarioContext> scenarioContexts = new ConcurrentHashMap<>();
 
+	// Subclasses which still override the deprecated Feature-based extension points get the Gherkin AST of a feature,
+	// it's parsed from the source and kept only until the feature item is started
+	private final boolean legacyFeatureStart = isOverridden("buildStartFeatureRequest", Feature.class, URI.class);
+	private final boolean legacyFeatureDescription = isOverridden("getDescription", Feature.class, URI.class);
+	private final Map<URI, Feature> legacyFeatures = new ConcurrentHashMap<>();
+
+	// Parsed features of this reporter's run. They are kept until the launch end, since a retried scenario may start its
+	// feature again after the feature was finished.
+	private final Map<URI, CompletableFuture<RunningContext.ParsedFeature>> parsedFeatures = new ConcurrentHashMap<>();
+
+	// Context of the scenario whose event is being handled, bound only for the time of the handler call
 	private final ThreadLocal<RunningContext.ScenarioContext> currentScenarioContext = new ThreadLocal<>();
 
+	// Agent-specific properties, read from reportportal.properties the same way as listener parameters
+	private final AgentProperties properties = AgentProperties.load();
+
+	// In-flight limits of item requests and logs
+	private final ReportingBudget budget = ReportingBudget.fromProperties(properties);
+
+	// Optional pipeline to handle events off Cucumber's test threads
+	private final ReportingPipeline pipeline = ReportingPipeline.fromProperties(properties);
+
+	// Optional spilling of large attachments of deferred scenarios to disk
+	private final AttachmentSpool attachmentSpool = AttachmentSpool.fromProperties(properties);
+
+	// Optional deferred reporting of whole scenarios, takes precedence over the pipeline for scenario events
+	private final DeferredReporting deferred = DeferredReporting.fromProperties(properties, attachmentSpool);
+
+	// Optional run-scoped deduplication of attachments by content
+	private final EmbeddingDeduplicator deduplicator = EmbeddingDeduplicator.fromProperties(properties);
+
+	// Optional compression of text-like attachments
+	private final EmbeddingCompressor compressor = EmbeddingCompressor.fromProperties(properties);
+
+	// Optional downscaling and re-encoding of screenshots on a worker pool
+	private final ImageProcessor imageProcessor = ImageProcessor.fromProperties(properties);
+
+	private final MemoizingSupplier<ReportingClock> clock = new MemoizingSupplier<>(() -> new ReportingClock(buildClock()));
+
+	private final StepDefinitionMetadata.Cache stepDefinitionCache = new StepDefinitionMetadata.Cache();
+
+	// Test Case IDs are memoized by step definition method, code reference and argument values
+	private final BoundedCache<List<Object>, TestCaseIdEntry> testCaseIdCache = new BoundedCache<>(TEST_CASE_ID_CACHE_SIZE);
+
+	// Step parameter names are memoized by code reference and argument layout
+	private final BoundedCache<List<Object>, List<String>> parameterNameCache = new BoundedCache<>(PARAMETER_NAME_CACHE_SIZE);
+
+	// Media type strings already checked by parsing, so repeated types skip the parser and its exceptions
+	private final BoundedCache<String, Boolean> mediaTypeCache = new BoundedCache<>(MEDIA_TYPE_CACHE_SIZE);
+
 	public static ReportPortal getReportPortal() {
 		return REPORT_PORTAL;
 	}
@@ -128,21 +184,206 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	@Override
 	public void setEventPublisher(EventPublisher publisher) {
-		publisher.registerHandlerFor(TestRunStarted.class, getTestRunStartedHandler());
+		publisher.registerHandlerFor(TestRunStarted.class, timed(getTestRunStartedHandler()));
 		publisher.registerHandlerFor(TestSourceRead.class, getTestSourceReadHandler());
-		publisher.registerHandlerFor(TestCaseStarted.class, getTestCaseStartedHandler());
-		publisher.registerHandlerFor(TestStepStarted.class, getTestStepStartedHandler());
-		publisher.registerHandlerFor(TestStepFinished.class, getTestStepFinishedHandler());
-		publisher.registerHandlerFor(TestCaseFinished.class, getTestCaseFinishedHandler());
-		publisher.registerHandlerFor(TestRunFinished.class, getTestRunFinishedHandler());
-		publisher.registerHandlerFor(EmbedEvent.class, getEmbedEventHandler());
-		publisher.registerHandlerFor(WriteEvent.class, getWriteEventHandler());
+		publisher.registerHandlerFor(TestCaseStarted.class, scenarioStart(pipelined(timed(getTestCaseStartedHandler()))));
+		publisher.registerHandlerFor(TestStepStarted.class, scenarioEvent(pipelined(timed(getTestStepStartedHandler()))));
+		publisher.registerHandlerFor(TestStepFinished.class, scenarioEvent(pipelined(timed(getTestStepFinishedHandler()))));
+		publisher.registerHandlerFor(TestCaseFinished.class, scenarioFinish(pipelinedLast(timed(getTestCaseFinishedHandler()))));
+		publisher.registerHandlerFor(TestRunFinished.class, afterPipeline(timed(getTestRunFinishedHandler())));
+		publisher.registerHandlerFor(EmbedEvent.class, scenarioEmbedding(pipelined(timed(getEmbedEventHandler()))));
+		publisher.registerHandlerFor(WriteEvent.class, scenarioEvent(pipelined(timed(getWriteEventHandler()))));
+	}
+
+	/**
+	 * Wraps an event handler to take all timestamps during the event handling from the instant carried by the event
+	 *
+	 * @param handler an event handler
+	 * @param <T>     event type
+	 * @return wrapped event handler
+	 */
+	@Nonnull
+	private <T extends Event> EventHandler<T> timed(@Nonnull EventHandler<T> handler) {
+		return event -> getClock().runAt(event.getInstant(), () -> handler.receive(event));
+	}
+
+	/**
+	 * Wraps an event handler to publish events into the lane of their scenario in the reporting pipeline, if the pipeline
+	 * is turned on and deferred reporting is not
+	 *
+	 * @param handler an event handler
+	 * @param <T>     event type
+	 * @return wrapped event handler
+	 */
+	@Nonnull
+	private <T extends TestCaseEvent> EventHandler<T> pipelined(@Nonnull EventHandler<T> handler) {
+		if (pipeline == null || deferred != null) {
+			return handler;
+		}
+		return event -> pipeline.publish(event.getTestCase(), handler, event);
+	}
+
+	/**
+	 * Wraps an event handler to publish the last event of a scenario into the reporting pipeline and to release the lane
+	 * of the scenario, if the pipeline is turned on and deferred reporting is not
+	 *
+	 * @param handler an event handler
+	 * @param <T>     event type
+	 * @return wrapped event handler
+	 */
+	@Nonnull
+	private <T extends TestCaseEvent> EventHandler<T> pipelinedLast(@Nonnull EventHandler<T> handler) {
+		if (pipeline == null || deferred != null) {
+			return handler;
+		}
+		return event -> pipeline.publishLast(event.getTestCase(), handler, event);
+	}
+
+	/**
+	 * Wraps an event handler to wait until all events published into the reporting pipeline or recorded by deferred
+	 * reporting are handled
+	 *
+	 * @param handler an event handler
+	 * @param <T>     event type
+	 * @return wrapped event handler
+	 */
+	@Nonnull
+	private <T extends Event> EventHandler<T> afterPipeline(@Nonnull EventHandler<T> handler) {
+		if (pipeline == null && deferred == null) {
+			return handler;
+		}
+		return event -> {
+			ofNullable(deferred).ifPresent(DeferredReporting::shutdown);
+			ofNullable(pipeline).ifPresent(ReportingPipeline::shutdown);
+			handler.receive(event);
+		};
+	}
+
+	/**
+	 * Wraps a scenario start event handler to start scenario recording, if deferred reporting is turned on
+	 *
+	 * @param handler an event handler
+	 * @param <T>     event type
+	 * @return wrapped event handler
+	 */
+	@Nonnull
+	private <T extends TestCaseEvent> EventHandler<T> scenarioStart(@Nonnull EventHandler<T> handler) {
+		if (deferred == null) {
+			return handler;
+		}
+		return event -> deferred.begin(event.getTestCase(), handler, event);
+	}
+
+	/**
+	 * Wraps a scenario event handler to record the event, if deferred reporting is turned on
+	 *
+	 * @param handler an event handler
+	 * @param <T>     event type
+	 * @return wrapped event handler
+	 */
+	@Nonnull
+	private <T extends TestCaseEvent> EventHandler<T> scenarioEvent(@Nonnull EventHandler<T> handler) {
+		if (deferred == null) {
+			return handler;
+		}
+		return event -> deferred.record(event.getTestCase(), handler, event);
 	}
 
+	/**
+	 * Wraps an embedding event handler to record the embedding, if deferred reporting is turned on
+	 *
+	 * @param handler an event handler
+	 * @return wrapped event handler
+	 */
+	@Nonnull
+	private EventHandler<EmbedEvent> scenarioEmbedding(@Nonnull EventHandler<EmbedEvent> handler) {
+		if (deferred == null) {
+			return handler;
+		}
+		return event -> deferred.recordEmbedding(event.getTestCase(), handler, event);
+	}
+
+	/**
+	 * Wraps a scenario finish event handler to submit the scenario recording, if deferred reporting is turned on
+	 *
+	 * @param handler an event handler
+	 * @param <T>     event type
+	 * @return wrapped event handler
+	 */
+	@Nonnull
+	private <T extends TestCaseEvent> EventHandler<T> scenarioFinish(@Nonnull EventHandler<T> handler) {
+		if (deferred == null) {
+			return handler;
+		}
+		return event -> deferred.complete(event.getTestCase(), handler, event);
+	}
+
+	/**
+	 * Extension point to customize the time source for item and log timestamps
+	 *
+	 * @return a clock to use
+	 */
+	@Nonnull
+	protected Clock buildClock() {
+		return Clock.systemUTC();
+	}
+
+	@Nonnull
+	protected ReportingClock getClock() {
+		return clock.get();
+	}
+
+	/**
+	 * Returns current time for a request: the instant of the event being handled, or the current clock time if there is
+	 * no such event. Instants of one scenario are kept strictly increasing, the result is truncated to milliseconds,
+	 * see {@link ReportingClock}.
+	 *
+	 * @return a date and time object
+	 */
+	@Nonnull
+	protected Date getCurrentTime() {
+		Instant instant = getClock().instant();
+		RunningContext.ScenarioContext context = getCurrentScenarioContext();
+		return ReportingClock.toDate(context == null ? instant : context.getTimeline().next(instant));
+	}
+
+	/**
+	 * Returns a context of the scenario whose event is being handled. The context is resolved by the event's test case,
+	 * so it doesn't depend on the thread which delivers the event.
+	 *
+	 * @return the scenario context or null if the current event doesn't belong to a running scenario
+	 */
 	protected RunningContext.ScenarioContext getCurrentScenarioContext() {
 		return currentScenarioContext.get();
 	}
 
+	/**
+	 * Returns a context of a running scenario
+	 *
+	 * @param testCase Cucumber's TestCase object
+	 * @return the scenario context or null if the scenario is not running
+	 */
+	@Nullable
+	protected RunningContext.ScenarioContext getScenarioContext(@Nonnull TestCase testCase) {
+		return scenarioContexts.get(testCase);
+	}
+
+	private <T extends TestCaseEvent> EventHandler<T> inScenario(@Nonnull EventHandler<T> handler) {
+		return event -> {
+			RunningContext.ScenarioContext previous = currentScenarioContext.get();
+			currentScenarioContext.set(scenarioContexts.get(event.getTestCase()));
+			try {
+				handler.receive(event);
+			} finally {
+				if (previous == null) {
+					currentScenarioContext.remove();
+				} else {
+					currentScenarioContext.set(previous);
+				}
+			}
+		};
+	}
+
 	/**
 	 * Manipulations before the launch starts
 	 */
@@ -166,8 +407,31 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	protected void afterLaunch() {
 		FinishExecutionRQ finishLaunchRq = new FinishExecutionRQ();
-		finishLaunchRq.setEndTime(Calendar.getInstance().getTime());
+		finishLaunchRq.setEndTime(getCurrentTime());
+		if (deduplicator != null) {
+			ItemAttributesRQ savedBytes = new ItemAttributesRQ();
+			savedBytes.setKey(DEDUPLICATION_SAVED_BYTES_KEY);
+			savedBytes.setValue(String.valueOf(deduplicator.getSavedBytes()));
+			// attributes of a finish request replace the launch ones, so the launch attributes are sent again
+			Set<ItemAttributesRQ> attributes = getLaunchAttributes(launch.get().getParameters());
+			attributes.add(savedBytes);
+			finishLaunchRq.setAttributes(attributes);
+		}
 		launch.get().finish(finishLaunchRq);
+		if (attachmentSpool != null) {
+			attachmentSpool.cleanUp();
+		}
+		if (imageProcessor != null) {
+			imageProcessor.shutdown();
+		}
+		if (budget.getDroppedLogs() > 0 || budget.getTimeouts() > 0 || budget.getOverruns() > 0) {
+			LOGGER.warn("Reporting budget exceeded: {} logs ({} bytes) dropped, {} logs sent over the budget, {} waits timed out",
+					budget.getDroppedLogs(),
+					budget.getDroppedBytes(),
+					budget.getOverruns(),
+					budget.getTimeouts()
+			);
+		}
 	}
 
 	private void addToTree(RunningContext.FeatureContext featureContext, RunningContext.ScenarioContext scenarioContext) {
@@ -191,7 +455,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 		String codeRef = getCodeRef(uri, line);
 		rq.setCodeRef(codeRef);
 		rq.setAttributes(extractAttributes(testCase.getTags()));
-		rq.setStartTime(Calendar.getInstance().getTime());
+		rq.setStartTime(getCurrentTime());
 		String type = getScenarioTestItemType();
 		rq.setType(type);
 		if ("STEP".equals(type)) {
@@ -209,7 +473,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	@Nonnull
 	protected Maybe<String> startScenario(@Nonnull Maybe<String> featureId, @Nonnull StartTestItemRQ startScenarioRq) {
-		return launch.get().startTestItem(featureId, startScenarioRq);
+		return budget.start(() -> launch.get().startTestItem(featureId, startScenarioRq));
 	}
 
 	/**
@@ -239,18 +503,27 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 
 	/**
 	 * Finish Cucumber scenario
-	 * Put scenario end time in a map to check last scenario end time per feature
+	 * Put scenario end time in a map to check last scenario end time per feature, finish the feature if it was its last
+	 * scenario
 	 *
 	 * @param event Cucumber's TestCaseFinished object
 	 */
 	protected void afterScenario(TestCaseFinished event) {
 		RunningContext.ScenarioContext context = getCurrentScenarioContext();
-		URI featureUri = context.getFeatureUri();
-		currentScenarioContextMap.remove(Pair.of(context.getLine(), featureUri));
+		int featureId = context.getFeatureId();
+		CompletableFuture<RunningContext.FeatureContext> featureHandle = features.get(featureId);
+		RunningContext.FeatureContext featureContext = featureHandle.join();
+		featureContext.stopScenario(context);
 		Date endTime = finishTestItem(context.getId(), event.getResult().getStatus());
-		featureEndTime.put(featureUri, endTime);
-		currentScenarioContext.remove();
-		removeFromTree(currentFeatureContextMap.get(context.getFeatureUri()), context);
+		if (endTime != null) {
+			featureContext.updateEndTime(endTime);
+		}
+		scenarioContexts.remove(event.getTestCase(), context);
+		removeFromTree(featureContext, context);
+		context.release();
+		if (featureContext.finishScenario() && features.remove(featureId, featureHandle)) {
+			handleEndOfFeature(featureContext);
+		}
 	}
 
 	/**
@@ -260,7 +533,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 		launch = new MemoizingSupplier<>(new Supplier<Launch>() {
 
 			/* should no be lazy */
-			private final Date startTime = Calendar.getInstance().getTime();
+			private final Date startTime = getCurrentTime();
 
 			@Override
 			public Launch get() {
@@ -271,28 +544,38 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 				rq.setName(parameters.getLaunchName());
 				rq.setStartTime(startTime);
 				rq.setMode(parameters.getLaunchRunningMode());
-				Set<ItemAttributesRQ> attributes = new HashSet<>(parameters.getAttributes());
-				rq.setAttributes(attributes);
-				attributes.addAll(SystemAttributesExtractor.extract(AGENT_PROPERTIES_FILE, AbstractReporter.class.getClassLoader()));
+				rq.setAttributes(getLaunchAttributes(parameters));
 				rq.setDescription(parameters.getDescription());
 				rq.setRerun(parameters.isRerun());
 				if (isNotBlank(parameters.getRerunOf())) {
 					rq.setRerunOf(parameters.getRerunOf());
 				}
 
-				if (null != parameters.getSkippedAnIssue()) {
-					ItemAttributesRQ skippedIssueAttribute = new ItemAttributesRQ();
-					skippedIssueAttribute.setKey(SKIPPED_ISSUE_KEY);
-					skippedIssueAttribute.setValue(parameters.getSkippedAnIssue().toString());
-					skippedIssueAttribute.setSystem(true);
-					attributes.add(skippedIssueAttribute);
-				}
-
 				return reportPortal.newLaunch(rq);
 			}
 		});
 	}
 
+	/**
+	 * Launch attributes: user attributes from the parameters and system attributes of the agent
+	 *
+	 * @param parameters launch parameters
+	 * @return a mutable set of attributes
+	 */
+	@Nonnull
+	private Set<ItemAttributesRQ> getLaunchAttributes(@Nonnull ListenerParameters parameters) {
+		Set<ItemAttributesRQ> attributes = new HashSet<>(parameters.getAttributes());
+		attributes.addAll(SystemAttributesExtractor.extract(AGENT_PROPERTIES_FILE, AbstractReporter.class.getClassLoader()));
+		if (null != parameters.getSkippedAnIssue()) {
+			ItemAttributesRQ skippedIssueAttribute = new ItemAttributesRQ();
+			skippedIssueAttribute.setKey(SKIPPED_ISSUE_KEY);
+			skippedIssueAttribute.setValue(parameters.getSkippedAnIssue().toString());
+			skippedIssueAttribute.setSystem(true);
+			attributes.add(skippedIssueAttribute);
+		}
+		return attributes;
+	}
+
 	/**
 	 * Generate a step name based on its type (Before Hook / Regular / etc.)
 	 *
@@ -318,7 +601,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 		StartTestItemRQ rq = new StartTestItemRQ();
 		rq.setName(Utils.buildName(stepPrefix, keyword, getStepName(testStep)));
 		rq.setDescription(buildMultilineArgument(testStep));
-		rq.setStartTime(Calendar.getInstance().getTime());
+		rq.setStartTime(getCurrentTime());
 		rq.setType("STEP");
 		String codeRef = getCodeRef(testStep);
 		rq.setParameters(getParameters(codeRef, testStep));
@@ -337,7 +620,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	@Nonnull
 	protected Maybe<String> startStep(@Nonnull Maybe<String> scenarioId, @Nonnull StartTestItemRQ startStepRq) {
-		return launch.get().startTestItem(scenarioId, startStepRq);
+		return budget.start(() -> launch.get().startTestItem(scenarioId, startStepRq));
 	}
 
 	/**
@@ -347,7 +630,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	protected void beforeStep(TestStep testStep) {
 		RunningContext.ScenarioContext context = getCurrentScenarioContext();
-		Step step = context.getStep(testStep);
+		RunningContext.ParsedStep step = context.getStep(testStep);
 		StartTestItemRQ rq = buildStartStepRequest(testStep, context.getStepPrefix(), step.getKeyword());
 		Maybe<String> stepId = startStep(context.getId(), rq);
 		context.setCurrentStepId(stepId);
@@ -367,6 +650,9 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	protected void afterStep(Result result) {
 		reportResult(result, null);
 		RunningContext.ScenarioContext context = getCurrentScenarioContext();
+		if (result.getStatus() == Status.FAILED) {
+			context.setFailed(true);
+		}
 		finishTestItem(context.getCurrentStepId(), result.getStatus());
 		context.setCurrentStepId(null);
 	}
@@ -382,7 +668,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 		Pair<String, String> typeName = getHookTypeAndName(hookType);
 		rq.setType(typeName.getKey());
 		rq.setName(typeName.getValue());
-		rq.setStartTime(Calendar.getInstance().getTime());
+		rq.setStartTime(getCurrentTime());
 		return rq;
 	}
 
@@ -395,7 +681,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	@Nonnull
 	protected Maybe<String> startHook(@Nonnull Maybe<String> parentId, @Nonnull StartTestItemRQ rq) {
-		return launch.get().startTestItem(parentId, rq);
+		return budget.start(() -> launch.get().startTestItem(parentId, rq));
 	}
 
 	/**
@@ -435,7 +721,11 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	protected void hookFinished(HookTestStep step, Result result, Boolean isBefore) {
 		reportResult(result, (isBefore ? "Before" : "After") + " hook: " + step.getCodeLocation());
-		getCurrentScenarioContext().setHookStatus(result.getStatus());
+		RunningContext.ScenarioContext context = getCurrentScenarioContext();
+		context.setHookStatus(result.getStatus());
+		if (result.getStatus() == Status.FAILED) {
+			context.setFailed(true);
+		}
 	}
 
 	/**
@@ -472,6 +762,10 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 
 	@Nullable
 	private static String getDataType(@Nonnull byte[] data, @Nullable String name) {
+		String sniffedType = MimeTypeSniffer.sniff(data, name);
+		if (sniffedType != null) {
+			return sniffedType;
+		}
 		try {
 			return MimeTypeDetector.detect(ByteSource.wrap(data), name);
 		} catch (IOException e) {
@@ -480,6 +774,21 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 		return null;
 	}
 
+	private boolean isValidMediaType(@Nonnull String mediaType) {
+		boolean valid = Boolean.TRUE.equals(mediaTypeCache.get(mediaType, m -> {
+			try {
+				MediaType.get(m);
+				return Boolean.TRUE;
+			} catch (IllegalArgumentException e) {
+				return Boolean.FALSE;
+			}
+		}));
+		if (!valid) {
+			LOGGER.warn("Incorrect media type '{}'", mediaType);
+		}
+		return valid;
+	}
+
 	/**
 	 * Send a log with data attached.
 	 *
@@ -488,21 +797,65 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 * @param data     data to attach
 	 */
 	protected void embedding(@Nullable String name, @Nullable String mimeType, @Nonnull byte[] data) {
-		String type = ofNullable(mimeType).filter(m -> {
-			try {
-				MediaType.get(m);
-				return true;
-			} catch (IllegalArgumentException e) {
-				LOGGER.warn("Incorrect media type '{}'", m);
-				return false;
-			}
-		}).orElseGet(() -> getDataType(data, name));
+		String type = ofNullable(mimeType).filter(this::isValidMediaType).orElseGet(() -> getDataType(data, name));
 		String attachmentName = ofNullable(name).filter(m -> !m.isEmpty())
 				.orElseGet(() -> ofNullable(type).map(t -> t.substring(0, t.indexOf("/"))).orElse(""));
-		ReportPortal.emitLog(new ReportPortalMessage(ByteSource.wrap(data), type, attachmentName),
-				"UNKNOWN",
-				Calendar.getInstance().getTime()
-		);
+		String key = ofNullable(deduplicator).map(d -> d.key(data)).orElse(null);
+		if (key != null) {
+			EmbeddingDeduplicator.Occurrence first = deduplicator.find(key, data.length);
+			if (first != null) {
+				if (deduplicator.getPolicy() == EmbeddingDeduplicator.Policy.LINK) {
+					sendLog(String.format("Attachment '%s' (%d bytes) is identical to '%s'%s%s logged at %s",
+							attachmentName,
+							data.length,
+							first.getName(),
+							ofNullable(first.getItemName()).map(item -> " of '" + item + "'").orElse(""),
+							ofNullable(first.getItemUuid()).map(uuid -> " [" + uuid + "]").orElse(""),
+							first.getTime().toInstant()
+					), "INFO");
+				}
+				return;
+			}
+		}
+		Date sentTime = sendEmbedding(attachmentName, type, data);
+		if (key != null && sentTime != null) {
+			RunningContext.ScenarioContext context = getCurrentScenarioContext();
+			String itemName = ofNullable(context).map(c -> ofNullable(c.getCurrentText()).orElseGet(c::getName)).orElse(null);
+			Maybe<String> itemId = ofNullable(context).map(c -> ofNullable(c.getCurrentStepId()).orElseGet(c::getId)).orElse(null);
+			deduplicator.register(key, new EmbeddingDeduplicator.Occurrence(attachmentName, itemName, itemId, sentTime));
+		}
+	}
+
+	@Nullable
+	private Date sendEmbedding(@Nonnull String attachmentName, @Nullable String type, @Nonnull byte[] data) {
+		boolean failedScenario = ofNullable(getCurrentScenarioContext()).map(RunningContext.ScenarioContext::isFailed).orElse(false);
+		if (imageProcessor != null && imageProcessor.accepts(type, failedScenario)) {
+			ImageProcessor.Image image = imageProcessor.process(data, type);
+			return sendAttachment(attachmentName, image.getMimeType(), image.getData());
+		}
+		EmbeddingCompressor.Compressed compressed = ofNullable(compressor).map(c -> c.compress(data, type, attachmentName)).orElse(null);
+		if (compressed != null) {
+			return sendAttachment(compressed.getName(), compressed.getMimeType(), compressed.getData());
+		}
+		return sendAttachment(attachmentName, type, data);
+	}
+
+	/**
+	 * Sends an attachment if it fits the reporting budget
+	 *
+	 * @param attachmentName attachment name
+	 * @param type           attachment MIME type
+	 * @param data           attachment data
+	 * @return the log timestamp, or null if the attachment was dropped
+	 */
+	@Nullable
+	private Date sendAttachment(@Nonnull String attachmentName, @Nullable String type, @Nonnull byte[] data) {
+		if (!budget.acquireLog(data.length, null)) {
+			return null;
+		}
+		Date time = getCurrentTime();
+		ReportPortal.emitLog(new ReportPortalMessage(ByteSource.wrap(data), type, attachmentName), "UNKNOWN", time);
+		return time;
 	}
 
 	/**
@@ -521,7 +874,20 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 * @param level   a log level, see standard Log4j / logback logging levels
 	 */
 	protected void sendLog(final String message, final String level) {
-		ReportPortal.emitLog(message, level, Calendar.getInstance().getTime());
+		if (!budget.acquireLog(ReportingBudget.byteSize(message), level)) {
+			return;
+		}
+		ReportPortal.emitLog(message, level, getCurrentTime());
+	}
+
+	/**
+	 * Returns in-flight budget of ReportPortal requests with counters of dropped logs
+	 *
+	 * @return the budget
+	 */
+	@Nonnull
+	protected ReportingBudget getReportingBudget() {
+		return budget;
 	}
 
 	private boolean isBefore(@Nonnull TestStep step) {
@@ -531,49 +897,86 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	@Nonnull
 	protected abstract Optional<Maybe<String>> getRootItemId();
 
+	private boolean isOverridden(@Nonnull String methodName, @Nonnull Class<?>... parameterTypes) {
+		for (Class<?> type = getClass(); type != AbstractReporter.class; type = type.getSuperclass()) {
+			try {
+				type.getDeclaredMethod(methodName, parameterTypes);
+				return true;
+			} catch (NoSuchMethodException ignore) {
+				// check the superclass
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Extension point to customize feature creation event/request
 	 *
-	 * @param feature a Cucumber's Feature object
+	 * @param feature a parsed feature object
 	 * @param uri     a path to the feature
 	 * @return Request to ReportPortal
 	 */
 	@Nonnull
-	protected StartTestItemRQ buildStartFeatureRequest(@Nonnull Feature feature, @Nonnull URI uri) {
+	protected StartTestItemRQ buildStartFeatureRequest(@Nonnull RunningContext.ParsedFeature feature, @Nonnull URI uri) {
 		String featureKeyword = feature.getKeyword();
 		String featureName = feature.getName();
 		StartTestItemRQ startFeatureRq = new StartTestItemRQ();
-		startFeatureRq.setDescription(getDescription(feature, uri));
+		Feature legacyFeature = legacyFeatureDescription ? legacyFeatures.get(uri) : null;
+		startFeatureRq.setDescription(legacyFeature != null ? getDescription(legacyFeature, uri) : getDescription(feature, uri));
 		startFeatureRq.setCodeRef(getCodeRef(uri, 0));
 		startFeatureRq.setName(buildName(featureKeyword, AbstractReporter.COLON_INFIX, featureName));
 		startFeatureRq.setAttributes(extractAttributes(feature.getTags()));
-		startFeatureRq.setStartTime(Calendar.getInstance().getTime());
+		startFeatureRq.setStartTime(getCurrentTime());
 		startFeatureRq.setType(getFeatureTestItemType());
 		return startFeatureRq;
 	}
 
+	/**
+	 * Extension point to customize feature creation event/request
+	 *
+	 * @param feature a Cucumber's Feature object
+	 * @param uri     a path to the feature
+	 * @return Request to ReportPortal
+	 * @deprecated use {@link #buildStartFeatureRequest(RunningContext.ParsedFeature, URI)}, the agent doesn't keep the
+	 * Gherkin AST of features unless this method is overridden
+	 */
+	@Nonnull
+	@Deprecated
+	protected StartTestItemRQ buildStartFeatureRequest(@Nonnull Feature feature, @Nonnull URI uri) {
+		return buildStartFeatureRequest(new RunningContext.ParsedFeature(feature), uri);
+	}
+
 	protected EventHandler<TestRunStarted> getTestRunStartedHandler() {
 		return event -> beforeLaunch();
 	}
 
 	protected EventHandler<TestSourceRead> getTestSourceReadHandler() {
-		return event -> RunningContext.FeatureContext.addTestSourceReadEvent(event.getUri(), event);
+		return event -> {
+			features.register(event.getUri());
+			parsedFeatures.put(event.getUri(), RunningContext.FeatureContext.parseTestSource(event));
+			if (legacyFeatureStart || legacyFeatureDescription) {
+				Feature feature = RunningContext.FeatureContext.parseFeature(event.getSource());
+				if (feature != null) {
+					legacyFeatures.put(event.getUri(), feature);
+				}
+			}
+		};
 	}
 
 	protected EventHandler<TestCaseStarted> getTestCaseStartedHandler() {
-		return this::handleStartOfTestCase;
+		return inScenario(this::handleStartOfTestCase);
 	}
 
 	protected EventHandler<TestStepStarted> getTestStepStartedHandler() {
-		return this::handleTestStepStarted;
+		return inScenario(this::handleTestStepStarted);
 	}
 
 	protected EventHandler<TestStepFinished> getTestStepFinishedHandler() {
-		return this::handleTestStepFinished;
+		return inScenario(this::handleTestStepFinished);
 	}
 
 	protected EventHandler<TestCaseFinished> getTestCaseFinishedHandler() {
-		return this::afterScenario;
+		return inScenario(this::afterScenario);
 	}
 
 	protected EventHandler<TestRunFinished> getTestRunFinishedHandler() {
@@ -584,24 +987,39 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	}
 
 	protected EventHandler<EmbedEvent> getEmbedEventHandler() {
-		return event -> embedding(event.getName(), event.getMediaType(), event.getData());
+		return inScenario(event -> embedding(event.getName(), event.getMediaType(), event.getData()));
 	}
 
 	protected EventHandler<WriteEvent> getWriteEventHandler() {
-		return event -> sendLog(event.getText());
+		return inScenario(event -> sendLog(event.getText()));
 	}
 
 	private void removeFromTree(RunningContext.FeatureContext featureContext) {
 		ITEM_TREE.getTestItems().remove(createKey(featureContext.getUri()));
 	}
 
+	/**
+	 * Finish features which are still running. Features are normally finished with their last scenario, this method
+	 * finishes the rest (e.g. if some scenarios were filtered out) at the end of the launch.
+	 */
 	protected void handleEndOfFeature() {
-		currentFeatureContextMap.values().forEach(f -> {
-			Date featureCompletionDateTime = featureEndTime.get(f.getUri());
-			finishFeature(f.getFeatureId(), featureCompletionDateTime);
-			removeFromTree(f);
+		features.values().forEach(featureHandle -> {
+			RunningContext.FeatureContext featureContext = featureHandle.getNow(null);
+			if (featureContext != null && features.remove(featureContext.getId(), featureHandle)) {
+				handleEndOfFeature(featureContext);
+			}
 		});
-		currentFeatureContextMap.clear();
+		parsedFeatures.clear();
+	}
+
+	/**
+	 * Finish a feature and release its state
+	 *
+	 * @param featureContext the feature context
+	 */
+	protected void handleEndOfFeature(@Nonnull RunningContext.FeatureContext featureContext) {
+		finishFeature(featureContext.getFeatureId(), featureContext.getEndTime());
+		removeFromTree(featureContext);
 	}
 
 	private void addToTree(RunningContext.FeatureContext context) {
@@ -617,21 +1035,24 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	@Nonnull
 	protected Maybe<String> startFeature(@Nonnull StartTestItemRQ startFeatureRq) {
 		Optional<Maybe<String>> root = getRootItemId();
-		return root.map(r -> launch.get().startTestItem(r, startFeatureRq)).orElseGet(() -> launch.get().startTestItem(startFeatureRq));
+		return budget.start(() -> root.map(r -> launch.get().startTestItem(r, startFeatureRq))
+				.orElseGet(() -> launch.get().startTestItem(startFeatureRq)));
 	}
 
 	protected void handleStartOfTestCase(@Nonnull TestCaseStarted event) {
 		TestCase testCase = event.getTestCase();
-		RunningContext.FeatureContext newFeatureContext = new RunningContext.FeatureContext(testCase);
-		URI featureUri = newFeatureContext.getUri();
-		RunningContext.FeatureContext featureContext = currentFeatureContextMap.computeIfAbsent(featureUri, u -> {
-			getRootItemId(); // trigger root item creation
-			newFeatureContext.setFeatureId(startFeature(buildStartFeatureRequest(newFeatureContext.getFeature(), featureUri)));
-			if (launch.get().getParameters().isCallbackReportingEnabled()) {
-				addToTree(newFeatureContext);
+		URI featureUri = testCase.getUri();
+		int featureId = features.register(featureUri);
+		CompletableFuture<RunningContext.FeatureContext> featureHandle = features.get(featureId);
+		if (featureHandle == null) {
+			CompletableFuture<RunningContext.FeatureContext> newFeatureHandle = new CompletableFuture<>();
+			featureHandle = features.putIfAbsent(featureId, newFeatureHandle);
+			if (featureHandle == null) {
+				featureHandle = newFeatureHandle;
+				startFeature(testCase, featureId, newFeatureHandle);
 			}
-			return newFeatureContext;
-		});
+		}
+		RunningContext.FeatureContext featureContext = featureHandle.join();
 
 		if (!featureContext.getUri().equals(testCase.getUri())) {
 			throw new IllegalStateException("Scenario URI does not match Feature URI.");
@@ -639,15 +1060,40 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 
 		RunningContext.ScenarioContext newScenarioContext = featureContext.getScenarioContext(testCase);
 
-		Pair<Integer, URI> scenarioLineFeatureURI = Pair.of(newScenarioContext.getLine(), featureContext.getUri());
-		RunningContext.ScenarioContext scenarioContext = currentScenarioContextMap.computeIfAbsent(scenarioLineFeatureURI, k -> {
-			currentScenarioContext.set(newScenarioContext);
-			return newScenarioContext;
-		});
+		RunningContext.ScenarioContext scenarioContext = featureContext.startScenario(newScenarioContext);
+		scenarioContexts.put(testCase, scenarioContext);
+		currentScenarioContext.set(scenarioContext);
 
 		beforeScenario(featureContext, scenarioContext);
 	}
 
+	private void startFeature(@Nonnull TestCase testCase, int featureId,
+			@Nonnull CompletableFuture<RunningContext.FeatureContext> featureHandle) {
+		try {
+			RunningContext.FeatureContext featureContext = new RunningContext.FeatureContext(testCase,
+					featureId,
+					parsedFeatures.get(testCase.getUri())
+			);
+			getRootItemId(); // trigger root item creation
+			URI uri = testCase.getUri();
+			Feature legacyFeature = legacyFeatureStart ? legacyFeatures.get(uri) : null;
+			StartTestItemRQ rq = legacyFeature != null ?
+					buildStartFeatureRequest(legacyFeature, uri) :
+					buildStartFeatureRequest(featureContext.getFeature(), uri);
+			legacyFeatures.remove(uri);
+			featureContext.setFeatureId(startFeature(rq));
+			if (launch.get().getParameters().isCallbackReportingEnabled()) {
+				addToTree(featureContext);
+			}
+			featureHandle.complete(featureContext);
+		} catch (RuntimeException | Error e) {
+			// let the next scenario of the feature try again
+			features.remove(featureId, featureHandle);
+			featureHandle.completeExceptionally(e);
+			throw e;
+		}
+	}
+
 	protected void handleTestStepStarted(@Nonnull TestStepStarted event) {
 		TestStep testStep = event.getTestStep();
 		if (testStep instanceof HookTestStep) {
@@ -699,7 +1145,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 			@Nullable ItemStatus status) {
 		FinishTestItemRQ rq = new FinishTestItemRQ();
 		ofNullable(status).ifPresent(s -> rq.setStatus(s.name()));
-		rq.setEndTime(ofNullable(finishTime).orElse(Calendar.getInstance().getTime()));
+		rq.setEndTime(ofNullable(finishTime).orElseGet(this::getCurrentTime));
 		return rq;
 	}
 
@@ -714,8 +1160,9 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 			LOGGER.error("BUG: Trying to finish unspecified test item.");
 			return;
 		}
+		FinishTestItemRQ rq = buildFinishTestItemRequest(itemId, dateTime, null);
 		//noinspection ReactiveStreamsUnusedPublisher
-		launch.get().finishTestItem(itemId, buildFinishTestItemRequest(itemId, dateTime, null));
+		budget.finish(() -> launch.get().finishTestItem(itemId, rq));
 	}
 
 	/**
@@ -734,7 +1181,7 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 		FinishTestItemRQ rq = buildFinishTestItemRequest(itemId, null, mapItemStatus(status));
 		new FinishTestItemRQ();
 		//noinspection ReactiveStreamsUnusedPublisher
-		launch.get().finishTestItem(itemId, rq);
+		budget.finish(() -> launch.get().finishTestItem(itemId, rq));
 		return rq.getEndTime();
 	}
 
@@ -845,6 +1292,25 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 		}).collect(Collectors.toSet());
 	}
 
+	/**
+	 * Returns step definition data for mapped code. The data is resolved once per step definition and cached.
+	 *
+	 * @param testStep Cucumber's TestStep object
+	 * @return step definition data or null if the step is not mapped to a step definition (ambiguous, undefined, etc.)
+	 */
+	@Nullable
+	protected StepDefinitionMetadata getStepDefinitionMetadata(@Nonnull TestStep testStep) {
+		Object definitionMatch = getDefinitionMatch(testStep);
+		if (definitionMatch == null) {
+			return null;
+		}
+		Object stepDefinition = getStepDefinition(definitionMatch);
+		if (stepDefinition == null) {
+			return null;
+		}
+		return stepDefinitionCache.get(stepDefinition);
+	}
+
 	/**
 	 * Returns static attributes defined by {@link Attributes} annotation in code.
 	 *
@@ -853,19 +1319,9 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	@Nullable
 	protected Set<ItemAttributesRQ> getAttributes(@Nonnull TestStep testStep) {
-		Object definitionMatch = getDefinitionMatch(testStep);
-		if (definitionMatch != null) {
-			try {
-				Method method = retrieveMethod(definitionMatch);
-				Attributes attributesAnnotation = method.getAnnotation(Attributes.class);
-				if (attributesAnnotation != null) {
-					return AttributeParser.retrieveAttributes(attributesAnnotation);
-				}
-			} catch (NoSuchFieldException | IllegalAccessException e) {
-				return null;
-			}
-		}
-		return null;
+		return ofNullable(getStepDefinitionMetadata(testStep)).map(StepDefinitionMetadata::getAttributes)
+				.<Set<ItemAttributesRQ>>map(HashSet::new)
+				.orElse(null);
 	}
 
 	/**
@@ -876,31 +1332,8 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	 */
 	@Nullable
 	protected String getCodeRef(@Nonnull TestStep testStep) {
-		String cucumberLocation = testStep.getCodeLocation();
-		try {
-			Object stepDefinitionMatch = Utils.getDefinitionMatch(testStep);
-			if (stepDefinitionMatch != null) {
-				Object javaStepDefinition = Accessible.on(stepDefinitionMatch).field(STEP_DEFINITION_FIELD_NAME).getValue();
-				if (javaStepDefinition != null) {
-					Object codeLocationObject = Accessible.on(javaStepDefinition).method(GET_LOCATION_METHOD_NAME).invoke();
-					if (codeLocationObject != null) {
-						String codeLocation = codeLocationObject.toString();
-						if (isNotBlank(codeLocation)) {
-							int openingBracketIndex = codeLocation.indexOf(METHOD_OPENING_BRACKET);
-							if (openingBracketIndex > 0) {
-								return codeLocation.substring(0, codeLocation.indexOf(METHOD_OPENING_BRACKET));
-							} else {
-								return codeLocation;
-							}
-						}
-					}
-				}
-			}
-		} catch (Throwable e) {
-			LOGGER.error("Unable to get java code reference for the Test Step: " + cucumberLocation, e);
-			return cucumberLocation;
-		}
-		return cucumberLocation;
+		return ofNullable(getStepDefinitionMetadata(testStep)).map(StepDefinitionMetadata::getCodeRef)
+				.orElseGet(testStep::getCodeLocation);
 	}
 
 	/**
@@ -930,21 +1363,50 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 
 		PickleStepTestStep pickleStepTestStep = (PickleStepTestStep) testStep;
 		List<Argument> arguments = pickleStepTestStep.getDefinitionArgument();
-		List<Pair<String, String>> params = ofNullable(arguments).map(a -> IntStream.range(0, a.size())
-				.mapToObj(i -> Pair.of("arg" + i, a.get(i).getValue()))
-				.collect(Collectors.toList())).orElse(new ArrayList<>());
-		ofNullable(pickleStepTestStep.getStep().getArgument()).ifPresent(a -> {
+		StepArgument multilineArgument = pickleStepTestStep.getStep().getArgument();
+		int argumentNumber = ofNullable(arguments).map(List::size).orElse(0);
+		List<String> values = new ArrayList<>(argumentNumber + 1);
+		for (int i = 0; i < argumentNumber; i++) {
+			values.add(arguments.get(i).getValue());
+		}
+		if (multilineArgument != null) {
 			String value;
-			if (a instanceof DocStringArgument) {
-				value = ((DocStringArgument) a).getContent();
-			} else if (a instanceof DataTableArgument) {
-				value = formatDataTable(((DataTableArgument) a).cells());
+			if (multilineArgument instanceof DocStringArgument) {
+				value = ((DocStringArgument) multilineArgument).getContent();
+			} else if (multilineArgument instanceof DataTableArgument) {
+				value = formatDataTable(((DataTableArgument) multilineArgument).cells());
 			} else {
-				value = a.toString();
+				value = multilineArgument.toString();
 			}
-			params.add(Pair.of("arg", value));
-		});
-		return ParameterUtils.getParameters(codeRef, params);
+			values.add(value);
+		}
+
+		// Parameter names depend only on the step definition and the argument layout, so they are resolved once
+		List<Object> schemaKey = Arrays.asList(codeRef, argumentNumber, multilineArgument != null);
+		List<String> names = values.contains(null) ? null : parameterNameCache.getIfPresent(schemaKey);
+		if (names != null && names.size() == values.size()) {
+			List<ParameterResource> result = new ArrayList<>(values.size());
+			for (int i = 0; i < values.size(); i++) {
+				ParameterResource parameter = new ParameterResource();
+				parameter.setKey(names.get(i));
+				parameter.setValue(values.get(i));
+				result.add(parameter);
+			}
+			return result;
+		}
+
+		List<Pair<String, String>> params = new ArrayList<>(values.size());
+		for (int i = 0; i < argumentNumber; i++) {
+			params.add(Pair.of("arg" + i, values.get(i)));
+		}
+		if (multilineArgument != null) {
+			params.add(Pair.of("arg", values.get(argumentNumber)));
+		}
+		List<ParameterResource> result = ParameterUtils.getParameters(codeRef, params);
+		if (result.size() == values.size()) {
+			parameterNameCache.put(schemaKey, result.stream().map(ParameterResource::getKey).collect(Collectors.toList()));
+		}
+		return result;
 	}
 
 	/**
@@ -957,18 +1419,17 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	@Nullable
 	@SuppressWarnings("unchecked")
 	protected TestCaseIdEntry getTestCaseId(@Nonnull TestStep testStep, @Nullable String codeRef) {
-		Object definitionMatch = getDefinitionMatch(testStep);
 		List<Argument> arguments = ((PickleStepTestStep) testStep).getDefinitionArgument();
-		if (definitionMatch != null) {
-			try {
-				Method method = retrieveMethod(definitionMatch);
-				return TestCaseIdUtils.getTestCaseId(method.getAnnotation(TestCaseId.class),
-						method,
-						codeRef,
-						(List<Object>) ARGUMENTS_TRANSFORM.apply(arguments)
-				);
-			} catch (NoSuchFieldException | IllegalAccessException ignore) {
-			}
+		StepDefinitionMetadata metadata = getStepDefinitionMetadata(testStep);
+		if (metadata != null && metadata.getMethod() != null) {
+			TestCaseId testCaseId = metadata.getTestCaseId();
+			Method method = metadata.getMethod();
+			List<Object> argumentValues = (List<Object>) ARGUMENTS_TRANSFORM.apply(arguments);
+			// a fixed Test Case ID value does not depend on step arguments, unlike a template which may reference them
+			boolean fixedValue = testCaseId != null && !testCaseId.parametrized() && isNotBlank(testCaseId.value())
+					&& !testCaseId.value().contains(TEST_CASE_ID_TEMPLATE_START);
+			List<Object> key = Arrays.asList(method, codeRef, fixedValue ? null : argumentValues);
+			return testCaseIdCache.get(key, k -> TestCaseIdUtils.getTestCaseId(testCaseId, method, codeRef, argumentValues));
 		}
 		return getTestCaseId(codeRef, arguments);
 	}
@@ -983,22 +1444,39 @@ public abstract class AbstractReporter implements ConcurrentEventListener {
 	@Nullable
 	@SuppressWarnings("unchecked")
 	protected TestCaseIdEntry getTestCaseId(@Nullable String codeRef, @Nullable List<Argument> arguments) {
-		return TestCaseIdUtils.getTestCaseId(codeRef, (List<Object>) ARGUMENTS_TRANSFORM.apply(arguments));
+		List<Object> argumentValues = (List<Object>) ARGUMENTS_TRANSFORM.apply(arguments);
+		List<Object> key = Arrays.asList(null, codeRef, argumentValues);
+		return testCaseIdCache.get(key, k -> TestCaseIdUtils.getTestCaseId(codeRef, argumentValues));
 	}
 
 	/**
 	 * Build an item description for a feature
 	 *
-	 * @param feature a Cucumber's Feature object
+	 * @param feature a parsed feature object
 	 * @param uri     a feature URI
 	 * @return item description
 	 */
 	@Nonnull
 	@SuppressWarnings("unused")
-	protected String getDescription(@Nonnull Feature feature, @Nonnull URI uri) {
+	protected String getDescription(@Nonnull RunningContext.ParsedFeature feature, @Nonnull URI uri) {
 		return uri.toString();
 	}
 
+	/**
+	 * Build an item description for a feature
+	 *
+	 * @param feature a Cucumber's Feature object
+	 * @param uri     a feature URI
+	 * @return item description
+	 * @deprecated use {@link #getDescription(RunningContext.ParsedFeature, URI)}, the agent doesn't keep the Gherkin AST
+	 * of features unless this method is overridden
+	 */
+	@Nonnull
+	@Deprecated
+	protected String getDescription(@Nonnull Feature feature, @Nonnull URI uri) {
+		return getDescription(new RunningContext.ParsedFeature(feature), uri);
+	}
+
 	/**
 	 * Build an item description for a scenario
 	 *
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import com.epam.reportportal.cucumber.util.ReportingThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spills large attachments of deferred scenarios to temporary files, so they are not kept on the heap while the
+ * scenario is running and waiting for replay. The file is written on a dedicated writer thread, the attachment stays in
+ * memory until it's written. On replay the attachment is read back into memory and its file is deleted right away, so
+ * disk usage is bounded by the attachments of scenarios not yet replayed. If a file can't be written the attachment is
+ * kept in memory.
+ * <p>
+ * The ReportPortal client reads attachment data into the log request in full, so attachments which are sent right away
+ * are not spilled: it would not lower the heap peak.
+ * <p>
+ * Spilling is turned off by default, to turn it on set {@value #SPILL_THRESHOLD_PROPERTY} property to a size in
+ * bytes. The directory is set with {@value #SPILL_DIRECTORY_PROPERTY} property (the system temporary directory
+ * by default).
+ */
+class AttachmentSpool {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AttachmentSpool.class);
+
+	public static final String SPILL_THRESHOLD_PROPERTY = "rp.cucumber.attachment.spill.threshold";
+	public static final String SPILL_DIRECTORY_PROPERTY = "rp.cucumber.attachment.spill.dir";
+
+	private static final String FILE_PREFIX = "rp-attachment-";
+	private static final String FILE_SUFFIX = ".bin";
+	private static final String THREAD_NAME_PREFIX = "rp-cucumber-spool-";
+	private static final long SHUTDOWN_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+	private final Path directory;
+	private final long threshold;
+	private final Executor writer;
+	// Attachments which are not released yet, to delete their files at the end of the launch
+	private final Map<Spilled, Boolean> spilled = new ConcurrentHashMap<>();
+
+	AttachmentSpool(@Nonnull Path spillDirectory, long spillThreshold, @Nonnull Executor spillWriter) {
+		directory = spillDirectory;
+		threshold = spillThreshold;
+		writer = spillWriter;
+	}
+
+	/**
+	 * Creates an attachment spool if {@value #SPILL_THRESHOLD_PROPERTY} property is set, deferred reporting is turned
+	 * on and the directory is usable
+	 *
+	 * @param properties agent properties
+	 * @return the spool or null if spilling is turned off
+	 */
+	@Nullable
+	static AttachmentSpool fromProperties(@Nonnull AgentProperties properties) {
+		long threshold = properties.getLong(SPILL_THRESHOLD_PROPERTY, 0L);
+		if (threshold <= 0) {
+			return null;
+		}
+		if (!properties.getBoolean(DeferredReporting.DEFERRED_ENABLED_PROPERTY, false)) {
+			LOGGER.warn("Attachment spilling requires '{}' property set to true, spilling is turned off",
+					DeferredReporting.DEFERRED_ENABLED_PROPERTY
+			);
+			return null;
+		}
+		Path path = Paths.get(properties.getString(SPILL_DIRECTORY_PROPERTY, System.getProperty("java.io.tmpdir")));
+		try {
+			Files.createDirectories(path);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to create attachment spill directory '{}', spilling is turned off", path, e);
+			return null;
+		}
+		return new AttachmentSpool(path, threshold, ReportingThreads.newExecutor(THREAD_NAME_PREFIX, 1));
+	}
+
+	/**
+	 * @param size an attachment size
+	 * @return true if an attachment of the given size should be spilled
+	 */
+	boolean accepts(long size) {
+		return size > threshold;
+	}
+
+	/**
+	 * Schedules writing of an attachment to a temporary file, the calling thread doesn't wait for the write
+	 *
+	 * @param data attachment data
+	 * @return the spilled attachment, it must be released once it's no longer needed
+	 */
+	@Nonnull
+	Spilled spill(@Nonnull byte[] data) {
+		Spilled attachment = new Spilled(data);
+		spilled.put(attachment, Boolean.TRUE);
+		try {
+			writer.execute(() -> write(attachment));
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn("Attachment spool is stopped, keeping the attachment in memory");
+		}
+		return attachment;
+	}
+
+	private void write(@Nonnull Spilled attachment) {
+		byte[] data = attachment.pending();
+		if (data == null) {
+			return;
+		}
+		Path file = null;
+		try {
+			file = Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+			Files.write(file, data);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to spill attachment to disk, keeping it in memory", e);
+			delete(file);
+			return;
+		}
+		if (!attachment.written(file)) {
+			// released while being written
+			delete(file);
+		}
+	}
+
+	private static void delete(@Nullable Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to delete spilled attachment '{}'", file, e);
+		}
+	}
+
+	/**
+	 * Returns attachment data and deletes its file
+	 *
+	 * @param attachment a spilled attachment
+	 * @return attachment data
+	 * @throws IOException if the file can't be read
+	 */
+	@Nonnull
+	byte[] release(@Nonnull Spilled attachment) throws IOException {
+		spilled.remove(attachment);
+		return attachment.release();
+	}
+
+	/**
+	 * Stops the writer and deletes files of attachments which were not released
+	 */
+	void cleanUp() {
+		if (writer instanceof ExecutorService) {
+			ExecutorService executor = (ExecutorService) writer;
+			executor.shutdown();
+			try {
+				if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					LOGGER.warn("Attachment spool writer was not stopped in time");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		spilled.keySet().removeIf(attachment -> {
+			try {
+				attachment.release();
+			} catch (IOException e) {
+				LOGGER.warn("Unable to release spilled attachment", e);
+			}
+			return true;
+		});
+	}
+
+	/**
+	 * An attachment which is either still in memory or already written to a file
+	 */
+	static final class Spilled {
+		private byte[] data;
+		private Path file;
+		private boolean released;
+
+		private Spilled(@Nonnull byte[] attachmentData) {
+			data = attachmentData;
+		}
+
+		/**
+		 * @return data to write, or null if the attachment is already released
+		 */
+		@Nullable
+		private synchronized byte[] pending() {
+			return released ? null : data;
+		}
+
+		/**
+		 * @param writtenFile a file with the attachment data
+		 * @return false if the attachment was released while the file was written, so the file is not needed
+		 */
+		private synchronized boolean written(@Nonnull Path writtenFile) {
+			if (released) {
+				return false;
+			}
+			file = writtenFile;
+			data = null;
+			return true;
+		}
+
+		@Nonnull
+		private synchronized byte[] release() throws IOException {
+			released = true;
+			if (data != null) {
+				byte[] result = data;
+				data = null;
+				return result;
+			}
+			if (file == null) {
+				return new byte[0];
+			}
+			try {
+				return Files.readAllBytes(file);
+			} finally {
+				delete(file);
+				file = null;
+			}
+		}
+
+		/**
+		 * @return true if the attachment data is on disk
+		 */
+		synchronized boolean isOnDisk() {
+			return file != null;
+		}
+	}
+}
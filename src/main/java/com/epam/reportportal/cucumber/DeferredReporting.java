@@ -0,0 +1,250 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import com.epam.reportportal.cucumber.util.ReportingThreads;
+import io.cucumber.plugin.event.EmbedEvent;
+import io.cucumber.plugin.event.EventHandler;
+import io.cucumber.plugin.event.TestCase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional deferred per-scenario reporting. Events of a scenario, from <code>TestCaseStarted</code> to
+ * <code>TestCaseFinished</code>, are only recorded. Once the scenario is finished the recording is replayed on a worker
+ * thread in one ordered burst, so the scenario's requests are built and sent together and don't interleave with other
+ * test threads. Timestamps are taken from the recorded events.
+ * <p>
+ * Recordings are kept by scenario key (Cucumber's TestCase), so events of a scenario may arrive on any thread. A
+ * recording is a flat array of handlers and events. Embedding events are not kept: a recording holds only their name,
+ * media type and data, and the data is spilled to disk if an {@link AttachmentSpool} is turned on and accepts its
+ * size, otherwise it stays in memory until the end of the scenario. A spilled file is deleted once the embedding is
+ * replayed.
+ * <p>
+ * All events of a scenario are replayed on a single worker thread, so the thread-bound state of the reporter and
+ * ReportPortal client stays consistent.
+ * <p>
+ * Only Cucumber events are recorded. Logs emitted directly from test code, through logging framework appenders or
+ * <code>ReportPortal.emitLog</code>, are not bound to the scenario or its steps in this mode: they are emitted on the
+ * test thread while the scenario's items are started later on a worker thread. Use <code>Scenario.write</code> and
+ * <code>Scenario.embed</code> to attach logs to steps.
+ * <p>
+ * The mode is turned off by default, to turn it on set {@value #DEFERRED_ENABLED_PROPERTY} property to
+ * <code>true</code>. The number of workers on JVMs without virtual threads is set with
+ * {@value #WORKER_NUMBER_PROPERTY} property.
+ */
+class DeferredReporting {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DeferredReporting.class);
+
+	public static final String DEFERRED_ENABLED_PROPERTY = "rp.cucumber.deferred.enabled";
+	public static final String WORKER_NUMBER_PROPERTY = "rp.cucumber.deferred.workers";
+
+	private static final String THREAD_NAME_PREFIX = "rp-cucumber-scenario-";
+	private static final long SHUTDOWN_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+	// Recordings of running scenarios by their keys
+	private final Map<Object, Recording> recordings = new ConcurrentHashMap<>();
+	private final ExecutorService executor;
+	private final AttachmentSpool spool;
+
+	DeferredReporting(@Nonnull ExecutorService workers, @Nullable AttachmentSpool attachmentSpool) {
+		executor = workers;
+		spool = attachmentSpool;
+	}
+
+	/**
+	 * Creates deferred reporting if {@value #DEFERRED_ENABLED_PROPERTY} property is set to <code>true</code>
+	 *
+	 * @param properties      agent properties
+	 * @param attachmentSpool a spool to keep recorded attachments on disk, if spilling is turned on
+	 * @return deferred reporting or null if the mode is turned off
+	 */
+	@Nullable
+	static DeferredReporting fromProperties(@Nonnull AgentProperties properties, @Nullable AttachmentSpool attachmentSpool) {
+		if (!properties.getBoolean(DEFERRED_ENABLED_PROPERTY, false)) {
+			return null;
+		}
+		int workers = properties.getInt(WORKER_NUMBER_PROPERTY, Runtime.getRuntime().availableProcessors());
+		return new DeferredReporting(ReportingThreads.newExecutor(THREAD_NAME_PREFIX, workers), attachmentSpool);
+	}
+
+	/**
+	 * Starts recording of a scenario
+	 *
+	 * @param key     scenario key
+	 * @param handler an event handler to call on replay
+	 * @param event   scenario start event
+	 * @param <T>     event type
+	 */
+	<T> void begin(@Nonnull Object key, @Nonnull EventHandler<T> handler, @Nonnull T event) {
+		Recording previous = recordings.put(key, new Recording());
+		if (previous != null) {
+			LOGGER.warn("Previous run of the scenario was not finished, submitting its recording as is");
+			submit(previous);
+		}
+		record(key, handler, event);
+	}
+
+	/**
+	 * Records an event of a scenario. If the scenario is not being recorded the event is handled immediately.
+	 *
+	 * @param key     scenario key
+	 * @param handler an event handler to call on replay
+	 * @param event   an event to record
+	 * @param <T>     event type
+	 */
+	<T> void record(@Nonnull Object key, @Nonnull EventHandler<T> handler, @Nonnull T event) {
+		Recording recording = recordings.get(key);
+		if (recording == null) {
+			handler.receive(event);
+			return;
+		}
+		recording.add(handler, event);
+	}
+
+	/**
+	 * Records an embedding of a scenario without keeping the event itself. If the scenario is not being recorded the
+	 * event is handled immediately.
+	 *
+	 * @param key     scenario key
+	 * @param handler an event handler to call on replay
+	 * @param event   an embedding event
+	 */
+	void recordEmbedding(@Nonnull Object key, @Nonnull EventHandler<EmbedEvent> handler, @Nonnull EmbedEvent event) {
+		Recording recording = recordings.get(key);
+		if (recording == null) {
+			handler.receive(event);
+			return;
+		}
+		byte[] data = event.getData();
+		boolean spill = spool != null && spool.accepts(data.length);
+		recording.add(handler, new RecordedEmbedding(event, spill ? spool : null));
+	}
+
+	/**
+	 * Records scenario finish event and submits the scenario for replay
+	 *
+	 * @param key     scenario key
+	 * @param handler an event handler to call on replay
+	 * @param event   scenario finish event
+	 * @param <T>     event type
+	 */
+	<T> void complete(@Nonnull Object key, @Nonnull EventHandler<T> handler, @Nonnull T event) {
+		record(key, handler, event);
+		Recording recording = recordings.remove(key);
+		if (recording != null) {
+			submit(recording);
+		}
+	}
+
+	private void submit(@Nonnull Recording recording) {
+		try {
+			executor.execute(recording::replay);
+		} catch (RejectedExecutionException e) {
+			recording.replay();
+		}
+	}
+
+	/**
+	 * Waits until all submitted scenarios are reported and stops workers
+	 */
+	void shutdown() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				LOGGER.error("Deferred scenario reporting was not finished in time");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Recorded handlers and events of a scenario, stored in turn in one flat array
+	 */
+	private static final class Recording {
+		private Object[] entries = new Object[16];
+		private int size;
+
+		private synchronized void add(@Nonnull Object handler, @Nonnull Object event) {
+			if (size + 2 > entries.length) {
+				entries = Arrays.copyOf(entries, entries.length * 2);
+			}
+			entries[size++] = handler;
+			entries[size++] = event;
+		}
+
+		@SuppressWarnings("unchecked")
+		private synchronized void replay() {
+			for (int i = 0; i < size; i += 2) {
+				EventHandler<Object> handler = (EventHandler<Object>) entries[i];
+				Object event = entries[i + 1];
+				entries[i] = null;
+				entries[i + 1] = null;
+				try {
+					handler.receive(event instanceof RecordedEmbedding ? ((RecordedEmbedding) event).toEvent() : event);
+				} catch (Throwable e) {
+					LOGGER.error("Unable to handle Cucumber event: " + event, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Embedding data without the event, the data is either in memory or spilled
+	 */
+	private static final class RecordedEmbedding {
+		private final Instant instant;
+		private final TestCase testCase;
+		private final String name;
+		private final String mediaType;
+		private final byte[] data;
+		private final AttachmentSpool spool;
+		private final AttachmentSpool.Spilled spilledData;
+
+		private RecordedEmbedding(@Nonnull EmbedEvent event, @Nullable AttachmentSpool attachmentSpool) {
+			instant = event.getInstant();
+			testCase = event.getTestCase();
+			name = event.getName();
+			mediaType = event.getMediaType();
+			spool = attachmentSpool;
+			spilledData = attachmentSpool == null ? null : attachmentSpool.spill(event.getData());
+			data = spilledData == null ? event.getData() : null;
+		}
+
+		@Nonnull
+		private EmbedEvent toEvent() throws IOException {
+			return new EmbedEvent(instant, testCase, data != null ? data : spool.release(spilledData), mediaType, name);
+		}
+
+		@Override
+		public String toString() {
+			return "Embedding '" + name + "' (" + mediaType + ")";
+		}
+	}
+}
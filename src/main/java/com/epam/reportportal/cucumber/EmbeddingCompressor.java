@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compresses text-like embedded attachments (plain text, logs, JSON, XML) before upload. An attachment is compressed if
+ * its MIME type is text-like and its size is not less than {@value #MIN_SIZE_PROPERTY} property value (4096
+ * bytes by default). The original file name is kept inside the archive: as a zip entry name or as the gzip header file
+ * name. The archive is used only if it's smaller than the original data.
+ * <p>
+ * Compression is turned off by default, to turn it on set {@value #COMPRESSION_FORMAT_PROPERTY} property to one
+ * of {@link Format} values.
+ */
+class EmbeddingCompressor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddingCompressor.class);
+
+	public static final String COMPRESSION_FORMAT_PROPERTY = "rp.cucumber.embedding.compression";
+	public static final String MIN_SIZE_PROPERTY = "rp.cucumber.embedding.compression.min.size";
+
+	private static final int DEFAULT_MIN_SIZE = 4096;
+
+	private static final int GZIP_MAGIC = 0x8b1f;
+	private static final int GZIP_FLAG_NAME = 0x08;
+	private static final int GZIP_OS_UNKNOWN = 0xff;
+
+	/**
+	 * Archive format
+	 */
+	public enum Format {
+		GZIP("application/gzip", ".gz"),
+		ZIP("application/zip", ".zip");
+
+		private final String mimeType;
+		private final String extension;
+
+		Format(String type, String fileExtension) {
+			mimeType = type;
+			extension = fileExtension;
+		}
+	}
+
+	/**
+	 * Compressed attachment
+	 */
+	static class Compressed {
+		private final byte[] data;
+		private final String mimeType;
+		private final String name;
+
+		private Compressed(@Nonnull byte[] compressedData, @Nonnull String type, @Nonnull String attachmentName) {
+			data = compressedData;
+			mimeType = type;
+			name = attachmentName;
+		}
+
+		@Nonnull
+		byte[] getData() {
+			return data;
+		}
+
+		@Nonnull
+		String getMimeType() {
+			return mimeType;
+		}
+
+		@Nonnull
+		String getName() {
+			return name;
+		}
+	}
+
+	private final Format format;
+	private final int minSize;
+
+	EmbeddingCompressor(@Nonnull Format archiveFormat, int minAttachmentSize) {
+		format = archiveFormat;
+		minSize = minAttachmentSize;
+	}
+
+	/**
+	 * Creates a compressor if {@value #COMPRESSION_FORMAT_PROPERTY} property is set
+	 *
+	 * @param properties agent properties
+	 * @return the compressor or null if compression is turned off
+	 */
+	@Nullable
+	static EmbeddingCompressor fromProperties(@Nonnull AgentProperties properties) {
+		String format = properties.getString(COMPRESSION_FORMAT_PROPERTY);
+		if (format == null) {
+			return null;
+		}
+		try {
+			return new EmbeddingCompressor(Format.valueOf(format.toUpperCase(Locale.ROOT)),
+					properties.getInt(MIN_SIZE_PROPERTY, DEFAULT_MIN_SIZE)
+			);
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Unknown embedding compression format '{}', compression is turned off", format);
+			return null;
+		}
+	}
+
+	/**
+	 * @param mimeType a MIME type
+	 * @return true if attachments of the given type are text-like and usually compress well
+	 */
+	static boolean isTextLike(@Nullable String mimeType) {
+		if (mimeType == null) {
+			return false;
+		}
+		int parametersStart = mimeType.indexOf(';');
+		String type = (parametersStart < 0 ? mimeType : mimeType.substring(0, parametersStart)).trim().toLowerCase(Locale.ROOT);
+		return type.startsWith("text/") || type.equals("application/json") || type.equals("application/xml") || type.endsWith("+json")
+				|| type.endsWith("+xml") || type.equals("application/x-ndjson") || type.equals("application/javascript");
+	}
+
+	@Nonnull
+	private static String entryName(@Nonnull String name, @Nonnull String mimeType) {
+		String fileName = name.isEmpty() ? "attachment" : name;
+		if (fileName.indexOf('.') >= 0) {
+			return fileName;
+		}
+		String type = mimeType.toLowerCase(Locale.ROOT);
+		if (type.contains("json")) {
+			return fileName + ".json";
+		}
+		if (type.contains("xml")) {
+			return fileName + ".xml";
+		}
+		return fileName + ".txt";
+	}
+
+	/**
+	 * Compresses an attachment if it's text-like and large enough
+	 *
+	 * @param data     attachment data
+	 * @param mimeType attachment MIME type
+	 * @param name     attachment name
+	 * @return the compressed attachment or null if the attachment should be sent as is
+	 */
+	@Nullable
+	Compressed compress(@Nonnull byte[] data, @Nullable String mimeType, @Nonnull String name) {
+		if (data.length < minSize || !isTextLike(mimeType)) {
+			return null;
+		}
+		String fileName = entryName(name, mimeType);
+		byte[] compressed;
+		try {
+			compressed = format == Format.ZIP ? zip(data, fileName) : gzip(data, fileName);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to compress attachment '{}', sending it as is", name, e);
+			return null;
+		}
+		if (compressed.length >= data.length) {
+			return null;
+		}
+		return new Compressed(compressed, format.mimeType, fileName + format.extension);
+	}
+
+	@Nonnull
+	private static byte[] zip(@Nonnull byte[] data, @Nonnull String fileName) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 4 + 128);
+		try (ZipOutputStream zip = new ZipOutputStream(result, StandardCharsets.UTF_8)) {
+			zip.putNextEntry(new ZipEntry(fileName));
+			zip.write(data);
+			zip.closeEntry();
+		}
+		return result.toByteArray();
+	}
+
+	/**
+	 * Writes a gzip member with the original file name in the header (FNAME field), which
+	 * {@link java.util.zip.GZIPOutputStream} doesn't support
+	 */
+	@Nonnull
+	private static byte[] gzip(@Nonnull byte[] data, @Nonnull String fileName) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 4 + 128);
+		result.write(GZIP_MAGIC & 0xff);
+		result.write(GZIP_MAGIC >> 8);
+		result.write(Deflater.DEFLATED);
+		result.write(GZIP_FLAG_NAME);
+		writeInt(result, 0); // modification time is not set
+		result.write(0); // extra flags
+		result.write(GZIP_OS_UNKNOWN);
+		result.write(fileName.replace('\0', '_').getBytes(StandardCharsets.ISO_8859_1));
+		result.write(0);
+
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			DeflaterOutputStream deflate = new DeflaterOutputStream(result, deflater);
+			deflate.write(data);
+			deflate.finish();
+		} finally {
+			deflater.end();
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		writeInt(result, (int) crc.getValue());
+		writeInt(result, data.length);
+		return result.toByteArray();
+	}
+
+	private static void writeInt(@Nonnull ByteArrayOutputStream stream, int value) {
+		stream.write(value & 0xff);
+		stream.write((value >> 8) & 0xff);
+		stream.write((value >> 16) & 0xff);
+		stream.write((value >> 24) & 0xff);
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import io.reactivex.Maybe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run-scoped content-addressed index of embedded attachments. An attachment is identified by a hash of its content, if
+ * the same content was already uploaded during the launch the attachment is either replaced with a short log which
+ * references the first occurrence, or skipped, depending on the policy. An attachment is registered only once it's
+ * actually sent, so a copy dropped by the reporting budget is never referenced. Copies sent at the same time by
+ * different scenarios may both be uploaded.
+ * <p>
+ * Hashing reads the whole attachment, so deduplication requires the reporting pipeline or deferred reporting, which
+ * handle embeddings on reporting threads instead of test threads.
+ * <p>
+ * Deduplication is turned off by default, to turn it on set {@value #DEDUPLICATION_POLICY_PROPERTY} property to
+ * one of {@link Policy} values together with {@value ReportingPipeline#PIPELINE_ENABLED_PROPERTY} or
+ * {@value DeferredReporting#DEFERRED_ENABLED_PROPERTY} property. Attachments smaller than
+ * {@value #MIN_SIZE_PROPERTY} property value (1024 bytes by default) are not deduplicated.
+ */
+class EmbeddingDeduplicator {
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddingDeduplicator.class);
+
+	public static final String DEDUPLICATION_POLICY_PROPERTY = "rp.cucumber.embedding.dedup";
+	public static final String MIN_SIZE_PROPERTY = "rp.cucumber.embedding.dedup.min.size";
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final int DEFAULT_MIN_SIZE = 1024;
+
+	/**
+	 * What to do with a repeated attachment
+	 */
+	public enum Policy {
+		/**
+		 * Send a short text log which references the first occurrence
+		 */
+		LINK,
+		/**
+		 * Don't send anything
+		 */
+		SKIP
+	}
+
+	private final Policy policy;
+	private final int minSize;
+	private final Map<String, Occurrence> firstOccurrences = new ConcurrentHashMap<>();
+	private final AtomicLong savedBytes = new AtomicLong();
+
+	EmbeddingDeduplicator(@Nonnull Policy deduplicationPolicy, int minAttachmentSize) {
+		policy = deduplicationPolicy;
+		minSize = minAttachmentSize;
+	}
+
+	/**
+	 * Creates a deduplicator if {@value #DEDUPLICATION_POLICY_PROPERTY} property is set and embeddings are
+	 * handled off test threads
+	 *
+	 * @param properties agent properties
+	 * @return the deduplicator or null if deduplication is turned off
+	 */
+	@Nullable
+	static EmbeddingDeduplicator fromProperties(@Nonnull AgentProperties properties) {
+		String policy = properties.getString(DEDUPLICATION_POLICY_PROPERTY);
+		if (policy == null) {
+			return null;
+		}
+		boolean offTestThreads = properties.getBoolean(ReportingPipeline.PIPELINE_ENABLED_PROPERTY, false)
+				|| properties.getBoolean(DeferredReporting.DEFERRED_ENABLED_PROPERTY, false);
+		if (!offTestThreads) {
+			LOGGER.warn("Embedding deduplication requires '{}' or '{}' property set to true, deduplication is turned off",
+					ReportingPipeline.PIPELINE_ENABLED_PROPERTY,
+					DeferredReporting.DEFERRED_ENABLED_PROPERTY
+			);
+			return null;
+		}
+		try {
+			return new EmbeddingDeduplicator(Policy.valueOf(policy.toUpperCase(Locale.ROOT)),
+					properties.getInt(MIN_SIZE_PROPERTY, DEFAULT_MIN_SIZE)
+			);
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Unknown embedding deduplication policy '{}', deduplication is turned off", policy);
+			return null;
+		}
+	}
+
+	@Nonnull
+	Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Builds an index key of an attachment
+	 *
+	 * @param data attachment data
+	 * @return the key or null if the attachment is too small to be deduplicated
+	 */
+	@Nullable
+	String key(@Nonnull byte[] data) {
+		return data.length < minSize ? null : hash(data);
+	}
+
+	/**
+	 * Looks for the first sent attachment with the same content and counts the saved bytes if there is one
+	 *
+	 * @param key  attachment key
+	 * @param size attachment size
+	 * @return the first occurrence or null if the content is new
+	 */
+	@Nullable
+	Occurrence find(@Nonnull String key, long size) {
+		Occurrence first = firstOccurrences.get(key);
+		if (first != null) {
+			savedBytes.addAndGet(size);
+		}
+		return first;
+	}
+
+	/**
+	 * Registers a sent attachment in the index, unless an attachment with the same content is already registered
+	 *
+	 * @param key        attachment key
+	 * @param occurrence the sent attachment
+	 */
+	void register(@Nonnull String key, @Nonnull Occurrence occurrence) {
+		firstOccurrences.putIfAbsent(key, occurrence);
+	}
+
+	/**
+	 * @return the number of bytes which were not uploaded due to deduplication
+	 */
+	long getSavedBytes() {
+		return savedBytes.get();
+	}
+
+	@Nonnull
+	static String hash(@Nonnull byte[] data) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] hash = digest.digest(data);
+		char[] result = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			result[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			result[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		// the length is a part of the key to make collisions of different sizes impossible
+		return data.length + ":" + new String(result);
+	}
+
+	/**
+	 * The first sent attachment with some content
+	 */
+	static class Occurrence {
+		private final String name;
+		private final String itemName;
+		private final Date time;
+		private volatile String itemUuid;
+
+		/**
+		 * @param attachmentName attachment name
+		 * @param item           name of the item the attachment was logged to
+		 * @param itemId         ID of the item, it's resolved asynchronously
+		 * @param logTime        log timestamp
+		 */
+		Occurrence(@Nonnull String attachmentName, @Nullable String item, @Nullable Maybe<String> itemId, @Nonnull Date logTime) {
+			name = attachmentName;
+			itemName = item;
+			time = logTime;
+			if (itemId != null) {
+				//noinspection ResultOfMethodCallIgnored
+				itemId.subscribe(uuid -> itemUuid = uuid, e -> {
+					// the item ID is optional in the reference
+				});
+			}
+		}
+
+		@Nonnull
+		String getName() {
+			return name;
+		}
+
+		@Nullable
+		String getItemName() {
+			return itemName;
+		}
+
+		@Nonnull
+		Date getTime() {
+			return time;
+		}
+
+		/**
+		 * @return the item UUID, or null if it's not known yet
+		 */
+		@Nullable
+		String getItemUuid() {
+			return itemUuid;
+		}
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import io.cucumber.core.internal.gherkin.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Persistent on-disk cache of {@link RunningContext.ParsedFeature} models, keyed by a hash of the feature source, the
+ * agent version and the Gherkin parser version. Allows to skip Gherkin parsing for feature files which were not changed
+ * since the previous run, while an upgrade of the agent or Cucumber invalidates the cache. Models are stored in a compact
+ * binary format and read through memory-mapped files.
+ * <p>
+ * The cache is turned off by default, to turn it on set {@value #CACHE_DIRECTORY_PROPERTY} property to a
+ * directory path.
+ */
+class FeatureModelCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FeatureModelCache.class);
+
+	public static final String CACHE_DIRECTORY_PROPERTY = "rp.cucumber.feature.cache.dir";
+
+	private static final int MAGIC = 0x52504643; // "RPFC"
+	private static final int FORMAT_VERSION = 2;
+	private static final String VERSION_KEY = version(FeatureModelCache.class) + "/" + version(Parser.class);
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final String FILE_EXTENSION = ".bin";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Path directory;
+
+	FeatureModelCache(@Nonnull Path cacheDirectory) {
+		directory = cacheDirectory;
+	}
+
+	/**
+	 * Creates a cache instance if {@value #CACHE_DIRECTORY_PROPERTY} property is set and the directory is usable
+	 *
+	 * @param properties agent properties
+	 * @return the cache or null if the cache is turned off
+	 */
+	@Nullable
+	static FeatureModelCache fromProperties(@Nonnull AgentProperties properties) {
+		String directory = properties.getString(CACHE_DIRECTORY_PROPERTY);
+		if (directory == null) {
+			return null;
+		}
+		Path path = Paths.get(directory);
+		try {
+			Files.createDirectories(path);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to create feature cache directory '{}', the cache is turned off", path, e);
+			return null;
+		}
+		return new FeatureModelCache(path);
+	}
+
+	/**
+	 * Returns a cached feature model for the given source, or parses it and puts the result into the cache
+	 *
+	 * @param source a feature source text
+	 * @param parser a function to build a feature model if it's not cached
+	 * @return a feature model or null if the parser is unable to build it
+	 */
+	@Nullable
+	RunningContext.ParsedFeature get(@Nonnull String source, @Nonnull Function<String, RunningContext.ParsedFeature> parser) {
+		Path file = directory.resolve(hash(source) + FILE_EXTENSION);
+		if (Files.isRegularFile(file)) {
+			try {
+				return read(file);
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Unable to read cached feature model '{}', parsing the source", file, e);
+			}
+		}
+		RunningContext.ParsedFeature feature = parser.apply(source);
+		if (feature != null) {
+			try {
+				write(file, feature);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to write feature model to cache '{}'", file, e);
+			}
+		}
+		return feature;
+	}
+
+	/**
+	 * Returns an implementation version of the library the class belongs to, or its location if the library has no
+	 * version in the manifest
+	 *
+	 * @param type a library class
+	 * @return a version string
+	 */
+	@Nonnull
+	private static String version(@Nonnull Class<?> type) {
+		Package typePackage = type.getPackage();
+		String version = typePackage != null ? typePackage.getImplementationVersion() : null;
+		if (version != null) {
+			return version;
+		}
+		CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+		return codeSource != null && codeSource.getLocation() != null ? codeSource.getLocation().toString() : "unknown";
+	}
+
+	/**
+	 * Builds a cache key of a feature source, the key also depends on the agent and Gherkin parser versions
+	 *
+	 * @param source a feature source text
+	 * @return a hex string key
+	 */
+	@Nonnull
+	static String hash(@Nonnull String source) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		digest.update(VERSION_KEY.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) '\n');
+		byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+		char[] result = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			result[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			result[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String(result);
+	}
+
+	private static void write(@Nonnull Path file, @Nonnull RunningContext.ParsedFeature feature) throws IOException {
+		Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				writeString(out, VERSION_KEY);
+				writeString(out, feature.getKeyword());
+				writeString(out, feature.getName());
+				out.writeInt(feature.getTags().size());
+				for (String tag : feature.getTags()) {
+					writeString(out, tag);
+				}
+				RunningContext.ParsedScenario background = feature.getBackground();
+				out.writeBoolean(background != null);
+				if (background != null) {
+					writeScenario(out, background);
+				}
+				out.writeInt(feature.getScenarios().size());
+				for (RunningContext.ParsedScenario scenario : feature.getScenarios()) {
+					writeScenario(out, scenario);
+				}
+			}
+			try {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static void writeScenario(@Nonnull DataOutputStream out, @Nonnull RunningContext.ParsedScenario scenario)
+			throws IOException {
+		writeString(out, scenario.getKeyword());
+		writeString(out, scenario.getName());
+		out.writeInt(scenario.getLine());
+		out.writeBoolean(scenario.isOutline());
+		out.writeInt(scenario.getSteps().size());
+		for (RunningContext.ParsedStep step : scenario.getSteps()) {
+			writeString(out, step.getKeyword());
+			writeString(out, step.getText());
+			out.writeInt(step.getLine());
+		}
+		int[] exampleLines = scenario.getExampleLines();
+		out.writeInt(exampleLines.length);
+		for (int line : exampleLines) {
+			out.writeInt(line);
+		}
+	}
+
+	private static void writeString(@Nonnull DataOutputStream out, @Nullable String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	@Nonnull
+	private static RunningContext.ParsedFeature read(@Nonnull Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !VERSION_KEY.equals(readString(buffer))) {
+			throw new IOException("Unknown feature cache file format");
+		}
+		String keyword = readString(buffer);
+		String name = readString(buffer);
+		int tagNumber = buffer.getInt();
+		List<String> tags = new ArrayList<>(tagNumber);
+		for (int i = 0; i < tagNumber; i++) {
+			tags.add(readString(buffer));
+		}
+		RunningContext.ParsedScenario background = buffer.get() != 0 ? readScenario(buffer) : null;
+		int scenarioNumber = buffer.getInt();
+		List<RunningContext.ParsedScenario> scenarios = new ArrayList<>(scenarioNumber);
+		for (int i = 0; i < scenarioNumber; i++) {
+			scenarios.add(readScenario(buffer));
+		}
+		return new RunningContext.ParsedFeature(keyword, name, tags, background, scenarios);
+	}
+
+	@Nonnull
+	private static RunningContext.ParsedScenario readScenario(@Nonnull ByteBuffer buffer) {
+		String keyword = readString(buffer);
+		String name = readString(buffer);
+		int line = buffer.getInt();
+		boolean outline = buffer.get() != 0;
+		int stepNumber = buffer.getInt();
+		List<RunningContext.ParsedStep> steps = new ArrayList<>(stepNumber);
+		for (int i = 0; i < stepNumber; i++) {
+			steps.add(new RunningContext.ParsedStep(readString(buffer), readString(buffer), buffer.getInt()));
+		}
+		int[] exampleLines = new int[buffer.getInt()];
+		for (int i = 0; i < exampleLines.length; i++) {
+			exampleLines[i] = buffer.getInt();
+		}
+		return new RunningContext.ParsedScenario(keyword, name, line, outline, steps, exampleLines);
+	}
+
+	@Nullable
+	private static String readString(@Nonnull ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
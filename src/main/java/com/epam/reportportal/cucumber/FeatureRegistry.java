@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registry which assigns each feature a dense int ID and keeps per-feature values in slots indexed by that ID. The URI
+ * is resolved to an ID once per scenario start, after that feature values are accessed by the ID without key
+ * allocation and hashing.
+ * <p>
+ * Slots are stored in lazily allocated fixed-size chunks, so the registry grows without copying and all slot
+ * operations are lock-free.
+ *
+ * @param <T> type of per-feature values
+ */
+class FeatureRegistry<T> {
+	private static final int CHUNK_BITS = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int MAX_CHUNKS = 1 << 16;
+
+	private final Map<URI, Integer> ids = new ConcurrentHashMap<>();
+	private final AtomicInteger idCounter = new AtomicInteger();
+	private final AtomicReferenceArray<AtomicReferenceArray<T>> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+	/**
+	 * Returns an ID of the feature, assigning a new one if the feature is not registered yet
+	 *
+	 * @param uri a feature URI
+	 * @return the feature ID
+	 */
+	int register(@Nonnull URI uri) {
+		Integer id = ids.get(uri);
+		if (id != null) {
+			return id;
+		}
+		return ids.computeIfAbsent(uri, u -> {
+			int newId = idCounter.getAndIncrement();
+			if ((newId >>> CHUNK_BITS) >= MAX_CHUNKS) {
+				throw new IllegalStateException("Too many features registered: " + newId);
+			}
+			return newId;
+		});
+	}
+
+	@Nullable
+	private AtomicReferenceArray<T> chunk(int id, boolean create) {
+		int index = id >>> CHUNK_BITS;
+		AtomicReferenceArray<T> chunk = chunks.get(index);
+		if (chunk == null && create) {
+			chunks.compareAndSet(index, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+			chunk = chunks.get(index);
+		}
+		return chunk;
+	}
+
+	/**
+	 * @param id a feature ID
+	 * @return the value in the feature slot or null if the slot is empty
+	 */
+	@Nullable
+	T get(int id) {
+		AtomicReferenceArray<T> chunk = chunk(id, false);
+		return chunk == null ? null : chunk.get(id & CHUNK_MASK);
+	}
+
+	/**
+	 * Puts a value into the feature slot if the slot is empty
+	 *
+	 * @param id    a feature ID
+	 * @param value a value to put
+	 * @return the previous value or null if the value was put
+	 */
+	@Nullable
+	T putIfAbsent(int id, @Nonnull T value) {
+		AtomicReferenceArray<T> chunk = chunk(id, true);
+		int index = id & CHUNK_MASK;
+		while (true) {
+			if (chunk.compareAndSet(index, null, value)) {
+				return null;
+			}
+			T previous = chunk.get(index);
+			if (previous != null) {
+				return previous;
+			}
+		}
+	}
+
+	/**
+	 * Empties the feature slot if it holds the given value. Values are compared by identity, not by
+	 * {@link Object#equals(Object)}, so the instance which was put into the slot must be passed.
+	 *
+	 * @param id    a feature ID
+	 * @param value an expected value
+	 * @return true if the slot was emptied
+	 */
+	boolean remove(int id, @Nonnull T value) {
+		AtomicReferenceArray<T> chunk = chunk(id, false);
+		return chunk != null && chunk.compareAndSet(id & CHUNK_MASK, value, null);
+	}
+
+	/**
+	 * @return values of all non-empty slots
+	 */
+	@Nonnull
+	List<T> values() {
+		List<T> result = new ArrayList<>();
+		int maxId = idCounter.get();
+		for (int id = 0; id < maxId; id++) {
+			T value = get(id);
+			if (value != null) {
+				result.add(value);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import com.epam.reportportal.cucumber.util.ReportingThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Downscales and re-encodes embedded screenshots using JDK's ImageIO only. Images are processed on a bounded worker
+ * pool, which limits the number of decoded images in memory at once. The embedding thread waits for the result, since
+ * the size and the type of the processed image are needed to build the log request, so processing requires the
+ * reporting pipeline or deferred reporting, which embed images off test threads. Otherwise it's turned off with a
+ * warning.
+ * <p>
+ * Processing is turned off by default, to turn it on set {@value #MAX_SIZE_PROPERTY} property to the maximum
+ * image width and height in pixels, or {@value #FORMAT_PROPERTY} property to one of {@link Format} values. JPEG
+ * quality is set with {@value #QUALITY_PROPERTY} property (0.8 by default), the number of workers with
+ * {@value #WORKER_NUMBER_PROPERTY} property. If {@value #KEEP_FAILED_PROPERTY} property is set to
+ * <code>true</code> images of failed scenarios are sent in full resolution. A scenario is considered failed if a step or
+ * a hook has failed by the time the image is embedded, so images embedded before the failure are still processed.
+ */
+class ImageProcessor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageProcessor.class);
+
+	public static final String MAX_SIZE_PROPERTY = "rp.cucumber.image.max.size";
+	public static final String FORMAT_PROPERTY = "rp.cucumber.image.format";
+	public static final String QUALITY_PROPERTY = "rp.cucumber.image.quality";
+	public static final String KEEP_FAILED_PROPERTY = "rp.cucumber.image.keep.failed";
+	public static final String WORKER_NUMBER_PROPERTY = "rp.cucumber.image.workers";
+
+	private static final String THREAD_NAME_PREFIX = "rp-cucumber-image-";
+	private static final float DEFAULT_QUALITY = 0.8f;
+
+	/**
+	 * Output image format
+	 */
+	public enum Format {
+		/**
+		 * Keep the original format, only downscale
+		 */
+		KEEP(null, null),
+		/**
+		 * Lossy JPEG
+		 */
+		JPEG("jpeg", "image/jpeg"),
+		/**
+		 * PNG with a 256-color palette
+		 */
+		PALETTE_PNG("png", "image/png");
+
+		private final String formatName;
+		private final String mimeType;
+
+		Format(String imageIoFormatName, String type) {
+			formatName = imageIoFormatName;
+			mimeType = type;
+		}
+	}
+
+	private final int maxSize;
+	private final Format format;
+	private final float quality;
+	private final boolean keepFailed;
+	private final ExecutorService executor;
+
+	ImageProcessor(int maxImageSize, @Nonnull Format outputFormat, float jpegQuality, boolean keepFailedImages,
+			@Nonnull ExecutorService workers) {
+		maxSize = maxImageSize;
+		format = outputFormat;
+		quality = jpegQuality;
+		keepFailed = keepFailedImages;
+		executor = workers;
+	}
+
+	/**
+	 * Creates an image processor if {@value #MAX_SIZE_PROPERTY} or {@value #FORMAT_PROPERTY} property is set and
+	 * events are handled off test threads
+	 *
+	 * @param properties agent properties
+	 * @return the processor or null if processing is turned off
+	 */
+	@Nullable
+	static ImageProcessor fromProperties(@Nonnull AgentProperties properties) {
+		int maxSize = properties.getInt(MAX_SIZE_PROPERTY, 0);
+		String formatProperty = properties.getString(FORMAT_PROPERTY);
+		if (maxSize <= 0 && formatProperty == null) {
+			return null;
+		}
+		boolean offTestThreads = properties.getBoolean(ReportingPipeline.PIPELINE_ENABLED_PROPERTY, false)
+				|| properties.getBoolean(DeferredReporting.DEFERRED_ENABLED_PROPERTY, false);
+		if (!offTestThreads) {
+			LOGGER.warn("Image processing requires '{}' or '{}' property set to true, processing is turned off",
+					ReportingPipeline.PIPELINE_ENABLED_PROPERTY,
+					DeferredReporting.DEFERRED_ENABLED_PROPERTY
+			);
+			return null;
+		}
+		Format format = Format.KEEP;
+		if (formatProperty != null) {
+			try {
+				format = Format.valueOf(formatProperty.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				LOGGER.warn("Unknown image format '{}', keeping original formats", formatProperty);
+			}
+		}
+		float quality = DEFAULT_QUALITY;
+		String qualityProperty = properties.getString(QUALITY_PROPERTY);
+		if (qualityProperty != null) {
+			try {
+				quality = Math.max(0f, Math.min(1f, Float.parseFloat(qualityProperty)));
+			} catch (NumberFormatException e) {
+				LOGGER.warn("Incorrect image quality '{}', using {}", qualityProperty, DEFAULT_QUALITY);
+			}
+		}
+		int workers = properties.getInt(WORKER_NUMBER_PROPERTY, Math.max(Runtime.getRuntime().availableProcessors() / 2, 1));
+		return new ImageProcessor(maxSize,
+				format,
+				quality,
+				properties.getBoolean(KEEP_FAILED_PROPERTY, false),
+				Executors.newFixedThreadPool(workers, ReportingThreads.threadFactory(THREAD_NAME_PREFIX))
+		);
+	}
+
+	@Nullable
+	private static String formatName(@Nullable String mimeType) {
+		if (mimeType == null) {
+			return null;
+		}
+		switch (mimeType.toLowerCase(Locale.ROOT)) {
+			case "image/png":
+				return "png";
+			case "image/jpeg":
+			case "image/jpg":
+				return "jpeg";
+			case "image/bmp":
+				return "bmp";
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * @param mimeType     an attachment MIME type
+	 * @param failedScenario true if the attachment belongs to a failed scenario
+	 * @return true if the attachment is an image which should be processed
+	 */
+	boolean accepts(@Nullable String mimeType, boolean failedScenario) {
+		return formatName(mimeType) != null && !(keepFailed && failedScenario);
+	}
+
+	/**
+	 * Processes an image on the worker pool and waits for the result
+	 *
+	 * @param data     image data
+	 * @param mimeType the original MIME type of an accepted image
+	 * @return the processed image, or the original one if it can't be processed
+	 */
+	@Nonnull
+	Image process(@Nonnull byte[] data, @Nonnull String mimeType) {
+		try {
+			return CompletableFuture.supplyAsync(() -> processImage(data, mimeType), executor).join();
+		} catch (RejectedExecutionException e) {
+			return processImage(data, mimeType);
+		} catch (CompletionException e) {
+			LOGGER.warn("Unable to process image of type '{}', sending it as is", mimeType, e.getCause());
+			return new Image(data, mimeType);
+		}
+	}
+
+	@Nonnull
+	Image processImage(@Nonnull byte[] data, @Nonnull String mimeType) {
+		Image original = new Image(data, mimeType);
+		try {
+			BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(data));
+			if (originalImage == null) {
+				LOGGER.warn("Unable to decode image of type '{}', sending it as is", mimeType);
+				return original;
+			}
+			String formatName = format.formatName == null ? formatName(mimeType) : format.formatName;
+			int width = originalImage.getWidth();
+			int height = originalImage.getHeight();
+			double scale = maxSize > 0 ? Math.min(1.0, (double) maxSize / Math.max(width, height)) : 1.0;
+			if (scale >= 1.0 && format == Format.KEEP) {
+				return original;
+			}
+			int targetWidth = Math.max((int) Math.round(width * scale), 1);
+			int targetHeight = Math.max((int) Math.round(height * scale), 1);
+			BufferedImage target = new BufferedImage(targetWidth, targetHeight, imageType(formatName, originalImage));
+			Graphics2D graphics = target.createGraphics();
+			try {
+				graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				if (!target.getColorModel().hasAlpha()) {
+					graphics.setColor(Color.WHITE);
+					graphics.fillRect(0, 0, targetWidth, targetHeight);
+				}
+				graphics.drawImage(originalImage, 0, 0, targetWidth, targetHeight, null);
+			} finally {
+				graphics.dispose();
+			}
+			byte[] result = write(target, formatName);
+			// a re-encoded image is kept even if it's bigger, since its format was changed on purpose
+			if (result.length < data.length || format != Format.KEEP) {
+				return new Image(result, format.mimeType == null ? mimeType : format.mimeType);
+			}
+			return original;
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Unable to process image of type '{}', sending it as is", mimeType, e);
+			return original;
+		}
+	}
+
+	private int imageType(@Nonnull String formatName, @Nonnull BufferedImage original) {
+		if (format == Format.PALETTE_PNG) {
+			return BufferedImage.TYPE_BYTE_INDEXED;
+		}
+		if ("png".equals(formatName) && original.getColorModel().hasAlpha()) {
+			return BufferedImage.TYPE_INT_ARGB;
+		}
+		return BufferedImage.TYPE_INT_RGB;
+	}
+
+	@Nonnull
+	private byte[] write(@Nonnull BufferedImage image, @Nonnull String formatName) throws IOException {
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+		if (!writers.hasNext()) {
+			throw new IOException("No image writer for format: " + formatName);
+		}
+		ImageWriter writer = writers.next();
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (ImageOutputStream output = ImageIO.createImageOutputStream(result)) {
+			writer.setOutput(output);
+			ImageWriteParam parameters = writer.getDefaultWriteParam();
+			if ("jpeg".equals(formatName)) {
+				parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				parameters.setCompressionQuality(quality);
+			}
+			writer.write(null, new IIOImage(image, null, null), parameters);
+		} finally {
+			writer.dispose();
+		}
+		return result.toByteArray();
+	}
+
+	/**
+	 * Stops workers once submitted images are processed
+	 */
+	void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Image data together with its MIME type
+	 */
+	static final class Image {
+		private final byte[] data;
+		private final String mimeType;
+
+		private Image(@Nonnull byte[] imageData, @Nonnull String type) {
+			data = imageData;
+			mimeType = type;
+		}
+
+		@Nonnull
+		byte[] getData() {
+			return data;
+		}
+
+		@Nonnull
+		String getMimeType() {
+			return mimeType;
+		}
+	}
+}
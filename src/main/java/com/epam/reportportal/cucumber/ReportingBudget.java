@@ -0,0 +1,384 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import io.reactivex.Maybe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-flight budget of ReportPortal requests. Limits the number of item requests which are not yet answered by the server,
+ * and the number and size of logs which are not yet flushed, to keep the agent memory bounded when the server slows
+ * down.
+ * <p>
+ * Item requests are always kept, when the item limit is reached the calling thread waits. What happens to logs over the
+ * limit is defined by a {@link Policy}. The client doesn't report when a log is sent, so logs are considered flushed
+ * once an item finish request, which was sent after them, is answered. A log waits only while such a request is in
+ * flight and can make room for it: the request which would release logs of a running item is usually sent by the same
+ * thread, so otherwise the log is sent over the budget instead of waiting for the timeout. Log sizes are counted in
+ * UTF-8 bytes.
+ * <p>
+ * The budget is unlimited by default. Limits are set with {@value #ITEM_LIMIT_PROPERTY}, {@value #LOG_LIMIT_PROPERTY}
+ * and {@value #BYTE_LIMIT_PROPERTY} properties, the policy with {@value #POLICY_PROPERTY} and the maximum time
+ * to wait in milliseconds with {@value #TIMEOUT_PROPERTY}.
+ */
+public class ReportingBudget {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportingBudget.class);
+
+	public static final String ITEM_LIMIT_PROPERTY = "rp.cucumber.budget.items";
+	public static final String LOG_LIMIT_PROPERTY = "rp.cucumber.budget.logs";
+	public static final String BYTE_LIMIT_PROPERTY = "rp.cucumber.budget.bytes";
+	public static final String POLICY_PROPERTY = "rp.cucumber.budget.policy";
+	public static final String TIMEOUT_PROPERTY = "rp.cucumber.budget.timeout";
+
+	private static final long DEFAULT_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * What to do with a log if it doesn't fit the budget
+	 */
+	public enum Policy {
+		/**
+		 * Wait until the log fits the budget
+		 */
+		BLOCK,
+		/**
+		 * Drop logs with level lower than WARN and attachments, wait for the rest
+		 */
+		DROP_LOGS,
+		/**
+		 * Drop all logs except ERROR and FATAL ones, including warnings and attachments, until in-flight logs go below the
+		 * half of the budget
+		 */
+		SUMMARY_ONLY
+	}
+
+	private static final Set<String> WARNING_LEVELS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("ERROR",
+			"FATAL",
+			"WARN"
+	)));
+	private static final Set<String> ERROR_LEVELS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("ERROR",
+			"FATAL"
+	)));
+
+	private final int itemLimit;
+	private final long logLimit;
+	private final long byteLimit;
+	private final Policy policy;
+	private final long timeout;
+
+	// Not a monitor lock, so waiting virtual threads don't pin their carrier threads
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	private int itemsInFlight;
+	private long logsCharged;
+	private long logsReleased;
+	private long bytesCharged;
+	private long bytesReleased;
+	private long logsCovered;
+	private long bytesCovered;
+	private boolean degraded;
+
+	private final AtomicLong droppedLogs = new AtomicLong();
+	private final AtomicLong droppedBytes = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong overruns = new AtomicLong();
+
+	public ReportingBudget(int maxItemsInFlight, long maxLogsInFlight, long maxBytesInFlight, @Nonnull Policy budgetPolicy,
+			long timeoutMillis) {
+		itemLimit = maxItemsInFlight;
+		logLimit = maxLogsInFlight;
+		byteLimit = maxBytesInFlight;
+		policy = budgetPolicy;
+		timeout = timeoutMillis;
+	}
+
+	/**
+	 * Creates a budget from agent properties
+	 *
+	 * @param properties agent properties
+	 * @return the budget, unlimited if no limits are set
+	 */
+	@Nonnull
+	public static ReportingBudget fromProperties(@Nonnull AgentProperties properties) {
+		String policy = properties.getString(POLICY_PROPERTY);
+		Policy budgetPolicy = Policy.BLOCK;
+		if (policy != null) {
+			try {
+				budgetPolicy = Policy.valueOf(policy.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				LOGGER.warn("Unknown reporting budget policy '{}', using {}", policy, budgetPolicy);
+			}
+		}
+		return new ReportingBudget(properties.getInt(ITEM_LIMIT_PROPERTY, 0),
+				properties.getLong(LOG_LIMIT_PROPERTY, 0L),
+				properties.getLong(BYTE_LIMIT_PROPERTY, 0L),
+				budgetPolicy,
+				properties.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT)
+		);
+	}
+
+	private boolean isUnlimited() {
+		return itemLimit <= 0 && logLimit <= 0 && byteLimit <= 0;
+	}
+
+	/**
+	 * Sends a start item request within the budget
+	 *
+	 * @param request a function which sends the request
+	 * @param <T>     response type
+	 * @return the request response
+	 */
+	@Nonnull
+	public <T> Maybe<T> start(@Nonnull Supplier<Maybe<T>> request) {
+		if (isUnlimited()) {
+			return request.get();
+		}
+		acquireItem();
+		return track(request, 0, 0);
+	}
+
+	/**
+	 * Sends a finish item request within the budget. Once it's answered all logs charged before the request are treated
+	 * as flushed.
+	 *
+	 * @param request a function which sends the request
+	 * @param <T>     response type
+	 * @return the request response
+	 */
+	@Nonnull
+	public <T> Maybe<T> finish(@Nonnull Supplier<Maybe<T>> request) {
+		if (isUnlimited()) {
+			return request.get();
+		}
+		acquireItem();
+		long logs;
+		long bytes;
+		lock.lock();
+		try {
+			logs = logsCharged;
+			bytes = bytesCharged;
+		} finally {
+			lock.unlock();
+		}
+		return track(request, logs, bytes);
+	}
+
+	@Nonnull
+	private <T> Maybe<T> track(@Nonnull Supplier<Maybe<T>> request, long logs, long bytes) {
+		Maybe<T> result;
+		try {
+			result = request.get();
+		} catch (RuntimeException e) {
+			release(0, 0);
+			throw e;
+		}
+		if (logs > 0 || bytes > 0) {
+			cover(logs, bytes);
+		}
+		//noinspection ResultOfMethodCallIgnored
+		result.subscribe(r -> release(logs, bytes), e -> release(logs, bytes), () -> release(logs, bytes));
+		return result;
+	}
+
+	private void acquireItem() {
+		lock.lock();
+		try {
+			if (itemLimit > 0) {
+				await(() -> itemsInFlight < itemLimit);
+			}
+			itemsInFlight++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void cover(long logs, long bytes) {
+		lock.lock();
+		try {
+			logsCovered = Math.max(logsCovered, logs);
+			bytesCovered = Math.max(bytesCovered, bytes);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void release(long logs, long bytes) {
+		lock.lock();
+		try {
+			itemsInFlight--;
+			logsReleased = Math.max(logsReleased, logs);
+			bytesReleased = Math.max(bytesReleased, bytes);
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static boolean hasLevel(@Nullable String level, @Nonnull Set<String> levels) {
+		return level != null && levels.contains(level.toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Checks if a log fits the budget and charges it. Depending on the policy can block the calling thread.
+	 *
+	 * @param size  log size in bytes
+	 * @param level log level, or null for an attachment; which levels are never dropped depends on the policy
+	 * @return true if the log should be sent, false if it was dropped
+	 */
+	public boolean acquireLog(long size, @Nullable String level) {
+		if (isUnlimited()) {
+			return true;
+		}
+		boolean important = hasLevel(level, policy == Policy.SUMMARY_ONLY ? ERROR_LEVELS : WARNING_LEVELS);
+		lock.lock();
+		try {
+			if (degraded && !important) {
+				if (fits(size, 2)) {
+					degraded = false;
+				} else {
+					return drop(size);
+				}
+			}
+			if (!fits(size, 1)) {
+				if (policy == Policy.SUMMARY_ONLY) {
+					degraded = true;
+					if (!important) {
+						return drop(size);
+					}
+				} else if (policy == Policy.DROP_LOGS && !important) {
+					return drop(size);
+				} else {
+					await(() -> fits(size, 1) || !canBeReleased(size));
+					if (!fits(size, 1) && !canBeReleased(size)) {
+						overruns.incrementAndGet();
+					}
+				}
+			}
+			logsCharged++;
+			bytesCharged += size;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean fits(long size, int divider) {
+		return fits(size, divider, logsReleased, bytesReleased);
+	}
+
+	/**
+	 * @param size log size in bytes
+	 * @return true if the log fits the budget once all finish requests in flight are answered
+	 */
+	private boolean canBeReleased(long size) {
+		return fits(size, 1, Math.max(logsReleased, logsCovered), Math.max(bytesReleased, bytesCovered));
+	}
+
+	private boolean fits(long size, int divider, long releasedLogs, long releasedBytes) {
+		long logs = logsCharged - releasedLogs;
+		long bytes = bytesCharged - releasedBytes;
+		return (logLimit <= 0 || logs + 1 <= logLimit / divider) && (byteLimit <= 0 || bytes == 0
+				|| bytes + size <= byteLimit / divider);
+	}
+
+	private boolean drop(long size) {
+		droppedLogs.incrementAndGet();
+		droppedBytes.addAndGet(size);
+		return false;
+	}
+
+	private void await(@Nonnull Supplier<Boolean> condition) {
+		long deadline = System.currentTimeMillis() + timeout;
+		try {
+			while (!condition.get()) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					timeouts.incrementAndGet();
+					LOGGER.warn("Reporting budget wait timed out, proceeding over the budget");
+					return;
+				}
+				released.await(remaining, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the number of dropped logs
+	 */
+	public long getDroppedLogs() {
+		return droppedLogs.get();
+	}
+
+	/**
+	 * @return the size of dropped logs in bytes
+	 */
+	public long getDroppedBytes() {
+		return droppedBytes.get();
+	}
+
+	/**
+	 * Counts the size of a text log as it's sent, in UTF-8 bytes
+	 *
+	 * @param message a log message
+	 * @return message size in bytes
+	 */
+	public static long byteSize(@Nullable String message) {
+		if (message == null) {
+			return 0;
+		}
+		long size = 0;
+		for (int i = 0; i < message.length(); i++) {
+			char c = message.charAt(i);
+			if (c < 0x80) {
+				size++;
+			} else if (c < 0x800) {
+				size += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < message.length() && Character.isLowSurrogate(message.charAt(i + 1))) {
+				size += 4;
+				i++;
+			} else {
+				size += 3;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the number of logs sent over the budget because no request in flight could make room for them
+	 */
+	public long getOverruns() {
+		return overruns.get();
+	}
+
+	/**
+	 * @return the number of times the budget wait timed out
+	 */
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+}
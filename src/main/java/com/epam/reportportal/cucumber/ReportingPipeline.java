@@ -0,0 +1,362 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import com.epam.reportportal.cucumber.util.ReportingThreads;
+import io.cucumber.plugin.event.EventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Optional event pipeline which moves event handling off Cucumber's test threads. Event handlers only publish the event
+ * into a pre-allocated bounded ring buffer, and a consumer thread builds and sends ReportPortal requests.
+ * <p>
+ * Each running scenario is assigned a lane, that is a lock-free single-producer/single-consumer ring buffer, from its
+ * first event until its last one. The producer is the scenario's test thread. The consumer is a thread of a bounded
+ * pool, which serves the lane from its first event until the last one, so the events of a scenario keep their order
+ * and a consumer thread handles one scenario at a time, which keeps the thread-bound state of the ReportPortal client
+ * (logging context) consistent. If more scenarios are running than there are consumer threads, events of the extra
+ * scenarios are buffered in their lanes until a consumer thread is free, and their test threads wait only once the
+ * lane is full. Lanes are reused by the next scenarios once their last event is published and handled. Logs emitted
+ * directly from test code through logging framework appenders are not bound to the current item in this mode, since
+ * test items are started on consumer threads. Consumer threads are virtual on JDK 21+, see {@link ReportingThreads}.
+ * <p>
+ * The producer and the consumer of a lane wait for each other by parking, a lane is never locked. Closing a lane on
+ * shutdown doesn't lose events published at the same time: the consumer drains the lane once it sees it closed, and a
+ * producer which sees the lane closed after publishing waits for the consumer to exit and handles what's left itself.
+ * <p>
+ * The pipeline is turned off by default, to turn it on set {@value #PIPELINE_ENABLED_PROPERTY} property to
+ * <code>true</code>. Ring buffer size is set with {@value #BUFFER_SIZE_PROPERTY} property, the number of consumer
+ * threads with {@value #CONSUMER_NUMBER_PROPERTY} property (the number of processors by default).
+ */
+class ReportingPipeline {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportingPipeline.class);
+
+	public static final String PIPELINE_ENABLED_PROPERTY = "rp.cucumber.pipeline.enabled";
+	public static final String BUFFER_SIZE_PROPERTY = "rp.cucumber.pipeline.buffer.size";
+	public static final String CONSUMER_NUMBER_PROPERTY = "rp.cucumber.pipeline.consumers";
+
+	private static final int DEFAULT_BUFFER_SIZE = 1024;
+	private static final String THREAD_NAME_PREFIX = "rp-cucumber-pipeline-";
+	// Upper bound of a single wait, in case a wake-up is missed
+	private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final int bufferSize;
+	private final ExecutorService consumers;
+	// All lanes, and the lanes which are not assigned to a scenario, guarded by the list itself
+	private final List<Lane> lanes = new ArrayList<>();
+	private final Deque<Lane> idleLanes = new ArrayDeque<>();
+	private final Map<Object, Lane> assignedLanes = new ConcurrentHashMap<>();
+	private boolean stopped;
+
+	ReportingPipeline(int ringBufferSize, int consumerNumber) {
+		int size = 1;
+		while (size < ringBufferSize) {
+			size <<= 1;
+		}
+		bufferSize = size;
+		consumers = Executors.newFixedThreadPool(Math.max(1, consumerNumber), ReportingThreads.threadFactory(THREAD_NAME_PREFIX));
+	}
+
+	/**
+	 * Creates a pipeline if {@value #PIPELINE_ENABLED_PROPERTY} property is set to <code>true</code>
+	 *
+	 * @param properties agent properties
+	 * @return the pipeline or null if the pipeline is turned off
+	 */
+	@Nullable
+	static ReportingPipeline fromProperties(@Nonnull AgentProperties properties) {
+		if (!properties.getBoolean(PIPELINE_ENABLED_PROPERTY, false)) {
+			return null;
+		}
+		return new ReportingPipeline(Math.max(2, properties.getInt(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE)),
+				properties.getInt(CONSUMER_NUMBER_PROPERTY, Runtime.getRuntime().availableProcessors())
+		);
+	}
+
+	/**
+	 * Takes an idle lane or creates a new one, and schedules it on the consumer pool
+	 *
+	 * @return the lane or null if the pipeline is stopped
+	 */
+	@Nullable
+	private Lane assignLane() {
+		synchronized (lanes) {
+			if (stopped) {
+				return null;
+			}
+			Lane lane = idleLanes.pollFirst();
+			if (lane == null) {
+				lane = new Lane(bufferSize);
+				lanes.add(lane);
+			}
+			CountDownLatch done = new CountDownLatch(1);
+			lane.done = done;
+			lane.owners.set(2);
+			Lane scheduled = lane;
+			consumers.execute(() -> serve(scheduled, done));
+			return lane;
+		}
+	}
+
+	private void serve(@Nonnull Lane lane, @Nonnull CountDownLatch done) {
+		boolean finished = false;
+		try {
+			finished = lane.consume();
+		} finally {
+			done.countDown();
+		}
+		if (finished) {
+			release(lane);
+		}
+	}
+
+	/**
+	 * Returns a lane to the idle ones once both its producer and its consumer are done with the scenario
+	 *
+	 * @param lane a lane
+	 */
+	private void release(@Nonnull Lane lane) {
+		if (lane.owners.decrementAndGet() == 0) {
+			synchronized (lanes) {
+				if (!stopped) {
+					idleLanes.offerFirst(lane);
+				}
+			}
+		}
+	}
+
+	private <T> void publish(@Nonnull Object key, @Nonnull EventHandler<T> handler, @Nonnull T event, boolean last) {
+		Lane lane = assignedLanes.get(key);
+		if (lane == null) {
+			lane = assignLane();
+			if (lane == null) {
+				handler.receive(event);
+				return;
+			}
+			if (!last) {
+				assignedLanes.put(key, lane);
+			}
+		} else if (last) {
+			assignedLanes.remove(key);
+		}
+		lane.offer(handler, event, last);
+		if (last) {
+			release(lane);
+		}
+	}
+
+	/**
+	 * Publishes an event to the lane of the given scenario. Waits if the lane is full. If the pipeline is already
+	 * stopped the event is handled in the current thread. Events of a scenario should be published by a single thread.
+	 *
+	 * @param key     a key of the scenario the event belongs to, e.g. Cucumber's TestCase
+	 * @param handler an event handler to call on a consumer thread
+	 * @param event   an event to handle
+	 * @param <T>     event type
+	 */
+	<T> void publish(@Nonnull Object key, @Nonnull EventHandler<T> handler, @Nonnull T event) {
+		publish(key, handler, event, false);
+	}
+
+	/**
+	 * Publishes the last event of a scenario, the lane of the scenario is reused once the event is handled
+	 *
+	 * @param key     a key of the scenario the event belongs to, e.g. Cucumber's TestCase
+	 * @param handler an event handler to call on a consumer thread
+	 * @param event   an event to handle
+	 * @param <T>     event type
+	 */
+	<T> void publishLast(@Nonnull Object key, @Nonnull EventHandler<T> handler, @Nonnull T event) {
+		publish(key, handler, event, true);
+	}
+
+	/**
+	 * Waits until all published events are handled and stops consumer threads
+	 */
+	void shutdown() {
+		List<Lane> toStop;
+		synchronized (lanes) {
+			stopped = true;
+			toStop = new ArrayList<>(lanes);
+			lanes.clear();
+			idleLanes.clear();
+		}
+		toStop.forEach(Lane::close);
+		toStop.forEach(Lane::awaitDone);
+		consumers.shutdown();
+		assignedLanes.clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void handle(@Nonnull Object handler, @Nonnull Object event) {
+		try {
+			((EventHandler<Object>) handler).receive(event);
+		} catch (Throwable e) {
+			LOGGER.error("Unable to handle Cucumber event: " + event, e);
+		}
+	}
+
+	/**
+	 * Single-producer/single-consumer ring buffer. The tail is written only by the producer and the head only by the
+	 * consumer, both are volatile, so slots written before a tail update are visible to the consumer which reads it.
+	 */
+	private static final class Lane {
+		private final Object[] handlers;
+		private final Object[] events;
+		private final boolean[] lasts;
+		private final int mask;
+		private volatile long head;
+		private volatile long tail;
+		private volatile boolean closed;
+		private volatile Thread waitingProducer;
+		private volatile Thread waitingConsumer;
+		// Counted down once the consumer of the current assignment exits
+		private volatile CountDownLatch done = new CountDownLatch(0);
+		// The producer and the consumer of the current assignment which are not done with the scenario yet
+		private final AtomicInteger owners = new AtomicInteger();
+
+		private Lane(int size) {
+			handlers = new Object[size];
+			events = new Object[size];
+			lasts = new boolean[size];
+			mask = size - 1;
+		}
+
+		private void offer(@Nonnull Object handler, @Nonnull Object event, boolean last) {
+			boolean interrupted = false;
+			long t = tail;
+			while (t - head > mask) {
+				if (closed) {
+					// the consumer has exited or is about to, free the space ourselves
+					awaitDone();
+					drain();
+					break;
+				}
+				waitingProducer = Thread.currentThread();
+				if (t - head > mask && !closed) {
+					LockSupport.parkNanos(this, PARK_NANOS);
+					interrupted |= Thread.interrupted();
+				}
+				waitingProducer = null;
+			}
+			int index = (int) (t & mask);
+			handlers[index] = handler;
+			events[index] = event;
+			lasts[index] = last;
+			tail = t + 1;
+			LockSupport.unpark(waitingConsumer);
+			if (closed) {
+				// the consumer might have exited before the event was published
+				awaitDone();
+				drain();
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Handles events until the last event of the scenario or until the lane is closed and drained
+		 *
+		 * @return true if the last event of the scenario was handled
+		 */
+		private boolean consume() {
+			while (true) {
+				long h = head;
+				if (h == tail) {
+					if (closed) {
+						if (h == tail) {
+							return false;
+						}
+						continue;
+					}
+					waitingConsumer = Thread.currentThread();
+					if (h == tail && !closed) {
+						LockSupport.parkNanos(this, PARK_NANOS);
+						Thread.interrupted();
+					}
+					waitingConsumer = null;
+					continue;
+				}
+				int index = (int) (h & mask);
+				Object handler = handlers[index];
+				Object event = events[index];
+				boolean last = lasts[index];
+				handlers[index] = null;
+				events[index] = null;
+				head = h + 1;
+				LockSupport.unpark(waitingProducer);
+				handle(handler, event);
+				if (last) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Handles what's left in the lane in the current thread, called by the producer once the consumer has exited
+		 */
+		private void drain() {
+			for (long h = head; h < tail; h = head) {
+				int index = (int) (h & mask);
+				Object handler = handlers[index];
+				Object event = events[index];
+				handlers[index] = null;
+				events[index] = null;
+				head = h + 1;
+				handle(handler, event);
+			}
+		}
+
+		private void close() {
+			closed = true;
+			LockSupport.unpark(waitingConsumer);
+			LockSupport.unpark(waitingProducer);
+		}
+
+		private void awaitDone() {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					done.await();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -15,6 +15,9 @@
  */
 package com.epam.reportportal.cucumber;
 
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import com.epam.reportportal.cucumber.util.ReportingClock;
+import com.epam.reportportal.cucumber.util.ReportingThreads;
 import io.cucumber.core.internal.gherkin.AstBuilder;
 import io.cucumber.core.internal.gherkin.Parser;
 import io.cucumber.core.internal.gherkin.ParserException;
@@ -24,11 +27,22 @@ import io.cucumber.core.internal.gherkin.ast.*;
 import io.cucumber.plugin.event.*;
 import io.reactivex.Maybe;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+
+import static java.util.Optional.ofNullable;
 
 /**
  * Running context that contains mostly manipulations with Gherkin objects.
@@ -44,34 +58,358 @@ public class RunningContext {
 		throw new AssertionError("No instances should exist for the class!");
 	}
 
+	@Nullable
+	private static String intern(@Nullable String value) {
+		return value == null ? null : value.intern();
+	}
+
+	/**
+	 * Compact projection of a feature file which keeps only the data the reporter needs: names, keywords, lines, tags
+	 * and steps. Strings are interned, since keywords, tags and step texts repeat across scenarios and features. Neither
+	 * feature source nor Gherkin AST objects are referenced once the projection is built.
+	 */
+	public static class ParsedFeature {
+		private final String keyword;
+		private final String name;
+		private final List<String> tags;
+		private final ParsedScenario background;
+		private final List<ParsedScenario> scenarios;
+		private final ParsedScenario[] scenarioLineIndex;
+		private final int[] outlineIterationLineIndex;
+		private final ParsedStep[] stepLineIndex;
+
+		public ParsedFeature(@Nonnull Feature feature) {
+			this(feature.getKeyword(),
+					feature.getName(),
+					feature.getTags().stream().map(Tag::getName).collect(Collectors.toList()),
+					feature.getChildren()
+							.stream()
+							.filter(c -> c instanceof Background)
+							.findFirst()
+							.map(ParsedScenario::new)
+							.orElse(null),
+					feature.getChildren().stream().filter(c -> !(c instanceof Background)).map(ParsedScenario::new).collect(Collectors.toList())
+			);
+		}
+
+		ParsedFeature(@Nullable String featureKeyword, @Nullable String featureName, @Nonnull List<String> featureTags,
+				@Nullable ParsedScenario featureBackground, @Nonnull List<ParsedScenario> featureScenarios) {
+			keyword = intern(featureKeyword);
+			name = intern(featureName);
+			tags = Collections.unmodifiableList(featureTags.stream().map(RunningContext::intern).collect(Collectors.toList()));
+			background = featureBackground;
+			scenarios = Collections.unmodifiableList(new ArrayList<>(featureScenarios));
+
+			int maxLine = 0;
+			List<ParsedScenario> children = new ArrayList<>(scenarios);
+			ofNullable(background).ifPresent(children::add);
+			for (ParsedScenario scenario : children) {
+				maxLine = Math.max(maxLine, scenario.getLine());
+				for (ParsedStep step : scenario.getSteps()) {
+					maxLine = Math.max(maxLine, step.getLine());
+				}
+				for (int line : scenario.getExampleLines()) {
+					maxLine = Math.max(maxLine, line);
+				}
+			}
+			scenarioLineIndex = new ParsedScenario[maxLine + 1];
+			outlineIterationLineIndex = new int[maxLine + 1];
+			stepLineIndex = new ParsedStep[maxLine + 1];
+
+			for (ParsedScenario scenario : children) {
+				for (ParsedStep step : scenario.getSteps()) {
+					stepLineIndex[step.getLine()] = step;
+				}
+			}
+			for (ParsedScenario scenario : scenarios) {
+				scenarioLineIndex[scenario.getLine()] = scenario;
+				int[] exampleLines = scenario.getExampleLines();
+				for (int i = 0; i < exampleLines.length; i++) {
+					scenarioLineIndex[exampleLines[i]] = scenario;
+					outlineIterationLineIndex[exampleLines[i]] = i + 1;
+				}
+			}
+		}
+
+		public String getKeyword() {
+			return keyword;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public List<String> getTags() {
+			return tags;
+		}
+
+		@Nullable
+		public ParsedScenario getBackground() {
+			return background;
+		}
+
+		public List<ParsedScenario> getScenarios() {
+			return scenarios;
+		}
+
+		/**
+		 * Returns the number of pickles (test cases) the feature compiles to: one per scenario and one per example row of
+		 * a scenario outline. Cucumber filters can only decrease the number of pickles which are actually run.
+		 *
+		 * @return the number of pickles
+		 */
+		public int getPickleCount() {
+			int count = 0;
+			for (ParsedScenario scenario : scenarios) {
+				count += scenario.isOutline() ? scenario.getExampleLines().length : 1;
+			}
+			return count;
+		}
+
+		/**
+		 * Returns the serial number of an example row inside its scenario outline
+		 *
+		 * @param line an example row line number
+		 * @return one-based outline iteration number or zero if the line is not an example row
+		 */
+		public int getOutlineIteration(int line) {
+			return line >= 0 && line < outlineIterationLineIndex.length ? outlineIterationLineIndex[line] : 0;
+		}
+
+		/**
+		 * @return the number of lines covered by the feature's line indexes, i.e. the last scenario, step or example row line
+		 * plus one
+		 */
+		public int getLineCount() {
+			return scenarioLineIndex.length;
+		}
+
+		/**
+		 * Returns a scenario which has the given line or contains an example row with the given line
+		 *
+		 * @param line a scenario or an example row line number
+		 * @return parsed scenario or null if there is no such scenario
+		 */
+		@Nullable
+		public ParsedScenario getScenario(int line) {
+			return line >= 0 && line < scenarioLineIndex.length ? scenarioLineIndex[line] : null;
+		}
+
+		/**
+		 * Returns a scenario or a background step by its line
+		 *
+		 * @param line a step line number
+		 * @return parsed step or null if there is no such step
+		 */
+		@Nullable
+		public ParsedStep getStep(int line) {
+			return line >= 0 && line < stepLineIndex.length ? stepLineIndex[line] : null;
+		}
+	}
+
+	/**
+	 * Compact projection of a Gherkin scenario, scenario outline or background
+	 */
+	public static class ParsedScenario {
+		private static final int[] NO_EXAMPLES = new int[0];
+
+		private final String keyword;
+		private final String name;
+		private final int line;
+		private final boolean outline;
+		private final List<ParsedStep> steps;
+		private final int[] exampleLines;
+
+		public ParsedScenario(@Nonnull ScenarioDefinition scenario) {
+			this(scenario.getKeyword(),
+					scenario.getName(),
+					scenario.getLocation().getLine(),
+					scenario instanceof ScenarioOutline,
+					scenario.getSteps().stream().map(ParsedStep::new).collect(Collectors.toList()),
+					scenario instanceof ScenarioOutline ?
+							((ScenarioOutline) scenario).getExamples()
+									.stream()
+									.flatMap(e -> e.getTableBody().stream())
+									.mapToInt(r -> r.getLocation().getLine())
+									.toArray() :
+							NO_EXAMPLES
+			);
+		}
+
+		ParsedScenario(@Nullable String scenarioKeyword, @Nullable String scenarioName, int scenarioLine, boolean isOutline,
+				@Nonnull List<ParsedStep> scenarioSteps, @Nonnull int[] scenarioExampleLines) {
+			keyword = intern(scenarioKeyword);
+			name = intern(scenarioName);
+			line = scenarioLine;
+			outline = isOutline;
+			steps = Collections.unmodifiableList(new ArrayList<>(scenarioSteps));
+			exampleLines = scenarioExampleLines.length > 0 ? scenarioExampleLines : NO_EXAMPLES;
+		}
+
+		public String getKeyword() {
+			return keyword;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getLine() {
+			return line;
+		}
+
+		public boolean isOutline() {
+			return outline;
+		}
+
+		public List<ParsedStep> getSteps() {
+			return steps;
+		}
+
+		/**
+		 * @return example row line numbers in iteration order, empty for regular scenarios and backgrounds
+		 */
+		int[] getExampleLines() {
+			return exampleLines;
+		}
+	}
+
+	/**
+	 * Compact projection of a Gherkin step
+	 */
+	public static class ParsedStep {
+		private final String keyword;
+		private final String text;
+		private final int line;
+
+		public ParsedStep(@Nonnull Step step) {
+			this(step.getKeyword(), step.getText(), step.getLocation().getLine());
+		}
+
+		ParsedStep(@Nullable String stepKeyword, @Nullable String stepText, int stepLine) {
+			keyword = intern(stepKeyword);
+			text = intern(stepText);
+			line = stepLine;
+		}
+
+		public String getKeyword() {
+			return keyword;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public int getLine() {
+			return line;
+		}
+	}
+
 	public static class FeatureContext {
-		private static final Map<URI, TestSourceRead> PATH_TO_READ_EVENT_MAP = new ConcurrentHashMap<>();
+		// Filled only by deprecated addTestSourceReadEvent, reporters keep parsed features of their own run
+		private static final Map<URI, CompletableFuture<ParsedFeature>> PATH_TO_FEATURE_MAP = new ConcurrentHashMap<>();
+		// Dedicated bounded pool, so feature parsing doesn't compete with user code in the common ForkJoinPool
+		private static final String PARSER_THREAD_NAME_PREFIX = "rp-cucumber-parser-";
+		private static final long PARSER_KEEP_ALIVE_SECONDS = 60;
+		private static final ExecutorService PARSER_EXECUTOR = newParserExecutor();
+		private static final FeatureModelCache FEATURE_CACHE = FeatureModelCache.fromProperties(AgentProperties.load());
 		private final URI currentFeatureUri;
-		private final Feature currentFeature;
+		private final ParsedFeature currentFeature;
+		private final int id;
+		private final AtomicInteger remainingScenarios;
+		private final AtomicReferenceArray<ScenarioContext> runningScenarios;
+		private final AtomicReference<Date> endTime = new AtomicReference<>();
 		private Maybe<String> currentFeatureId;
 
+		/**
+		 * @param testCase the first test case of the feature
+		 * @deprecated the feature is looked up in a static map which is never cleared, use
+		 * {@link #FeatureContext(TestCase, int, CompletableFuture)} with {@link #parseTestSource(TestSourceRead)} result
+		 */
+		@Deprecated
 		public FeatureContext(TestCase testCase) {
-			TestSourceRead event = PATH_TO_READ_EVENT_MAP.get(testCase.getUri());
-			currentFeature = getFeature(event.getSource());
-			currentFeatureUri = event.getUri();
+			this(testCase, -1, PATH_TO_FEATURE_MAP.get(testCase.getUri()));
+		}
+
+		/**
+		 * @param testCase      the first test case of the feature
+		 * @param featureId     a dense feature ID, see {@link #getId()}
+		 * @param parsedFeature the feature parsing result, see {@link #parseTestSource(TestSourceRead)}
+		 */
+		public FeatureContext(TestCase testCase, int featureId, @Nullable CompletableFuture<ParsedFeature> parsedFeature) {
+			currentFeatureUri = testCase.getUri();
+			currentFeature = ofNullable(parsedFeature).map(CompletableFuture::join)
+					.orElseThrow(() -> new IllegalStateException("No parsed feature found for URI: " + currentFeatureUri));
+			id = featureId;
+			remainingScenarios = new AtomicInteger(currentFeature.getPickleCount());
+			runningScenarios = new AtomicReferenceArray<>(currentFeature.getLineCount());
+		}
+
+		/**
+		 * @return a bounded pool of half of available processors, whose idle threads time out
+		 */
+		private static ExecutorService newParserExecutor() {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads,
+					threads,
+					PARSER_KEEP_ALIVE_SECONDS,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(),
+					ReportingThreads.threadFactory(PARSER_THREAD_NAME_PREFIX)
+			);
+			executor.allowCoreThreadTimeOut(true);
+			return executor;
+		}
+
+		/**
+		 * Schedules feature source parsing and indexing on the dedicated parser pool, so the work is done before the
+		 * feature's first scenario starts and does not land on Cucumber's test threads. Only the compact
+		 * {@link ParsedFeature} projection is kept, the source text and Gherkin AST are released right after parsing.
+		 *
+		 * @param event Cucumber's TestSourceRead object
+		 * @return the parsing result
+		 */
+		@Nonnull
+		public static CompletableFuture<ParsedFeature> parseTestSource(TestSourceRead event) {
+			String source = event.getSource();
+			return CompletableFuture.supplyAsync(() -> {
+				if (FEATURE_CACHE == null) {
+					return parseFeatureModel(source);
+				}
+				return FEATURE_CACHE.get(source, FeatureContext::parseFeatureModel);
+			}, PARSER_EXECUTOR);
 		}
 
+		/**
+		 * @param uri   a feature URI
+		 * @param event Cucumber's TestSourceRead object
+		 * @deprecated parsed features are kept in a static map which is never cleared, use
+		 * {@link #parseTestSource(TestSourceRead)}
+		 */
+		@Deprecated
 		public static void addTestSourceReadEvent(URI uri, TestSourceRead event) {
-			PATH_TO_READ_EVENT_MAP.put(uri, event);
+			PATH_TO_FEATURE_MAP.put(uri, parseTestSource(event));
 		}
 
 		public ScenarioContext getScenarioContext(TestCase testCase) {
-			ScenarioDefinition scenario = getScenario(testCase);
+			ParsedScenario scenario = getScenario(testCase);
 			ScenarioContext context = new ScenarioContext();
-			context.processScenario(scenario);
+			context.processScenario(currentFeature, scenario);
 			context.setTestCase(testCase);
 			context.processBackground(getBackground());
-			context.processScenarioOutline(scenario);
 			context.setFeatureUri(getUri());
+			context.setFeatureId(id);
+			context.processScenarioOutline(scenario, getOutlineIteration(testCase.getLine()));
 			return context;
 		}
 
-		public Feature getFeature(String source) {
+		@Nullable
+		private static ParsedFeature parseFeatureModel(String source) {
+			return ofNullable(parseFeature(source)).map(ParsedFeature::new).orElse(null);
+		}
+
+		@Nullable
+		static Feature parseFeature(String source) {
 			Parser<GherkinDocument> parser = new Parser<>(new AstBuilder());
 			TokenMatcher matcher = new TokenMatcher();
 			GherkinDocument gherkinDocument;
@@ -84,12 +422,25 @@ public class RunningContext {
 			return gherkinDocument.getFeature();
 		}
 
-		public Background getBackground() {
-			ScenarioDefinition background = getFeature().getChildren().get(0);
-			return background instanceof Background ? (Background) background : null;
+		/**
+		 * Parses a feature source into Gherkin AST
+		 *
+		 * @param source a feature source
+		 * @return a feature or null if the source can't be parsed
+		 * @deprecated the agent keeps only {@link ParsedFeature} projections of features, use {@link #getFeature()}
+		 */
+		@Nullable
+		@Deprecated
+		public Feature getFeature(String source) {
+			return parseFeature(source);
+		}
+
+		@Nullable
+		public ParsedScenario getBackground() {
+			return currentFeature.getBackground();
 		}
 
-		public Feature getFeature() {
+		public ParsedFeature getFeature() {
 			return currentFeature;
 		}
 
@@ -105,114 +456,169 @@ public class RunningContext {
 			this.currentFeatureId = featureId;
 		}
 
-		@SuppressWarnings("unchecked")
-		public <T extends ScenarioDefinition> T getScenario(TestCase testCase) {
-			List<ScenarioDefinition> featureScenarios = getFeature().getChildren();
-			for (ScenarioDefinition scenario : featureScenarios) {
-				if (scenario instanceof Background) {
-					continue;
+		/**
+		 * @return a dense feature ID assigned by the reporter, or -1 if the feature is not registered
+		 */
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * Registers a running scenario in the slot of its line
+		 *
+		 * @param scenarioContext a scenario context
+		 * @return a scenario context which is already running on the same line, or the given one if there is no such
+		 */
+		@Nonnull
+		public ScenarioContext startScenario(@Nonnull ScenarioContext scenarioContext) {
+			int line = scenarioContext.getLine();
+			while (true) {
+				if (runningScenarios.compareAndSet(line, null, scenarioContext)) {
+					return scenarioContext;
 				}
-				if (testCase.getLine() == scenario.getLocation().getLine() && testCase.getName().equals(scenario.getName())) {
-					return (T) scenario;
-				} else {
-					if (scenario instanceof ScenarioOutline) {
-						for (Examples example : ((ScenarioOutline) scenario).getExamples()) {
-							for (TableRow tableRow : example.getTableBody()) {
-								if (tableRow.getLocation().getLine() == testCase.getLine()) {
-									return (T) scenario;
-								}
-							}
-						}
-					}
+				ScenarioContext running = runningScenarios.get(line);
+				if (running != null) {
+					return running;
 				}
 			}
-			throw new IllegalStateException("Scenario can't be null!");
+		}
+
+		/**
+		 * Removes a scenario from the slot of its line
+		 *
+		 * @param scenarioContext a scenario context
+		 */
+		public void stopScenario(@Nonnull ScenarioContext scenarioContext) {
+			runningScenarios.compareAndSet(scenarioContext.getLine(), scenarioContext, null);
+		}
+
+		/**
+		 * Records a scenario end time, the latest one is kept as the feature end time
+		 *
+		 * @param scenarioEndTime a scenario end time
+		 */
+		public void updateEndTime(@Nonnull Date scenarioEndTime) {
+			endTime.accumulateAndGet(scenarioEndTime, (previous, current) -> previous == null || current.after(previous) ? current : previous);
+		}
+
+		/**
+		 * @return the latest scenario end time or null if no scenario was finished
+		 */
+		@Nullable
+		public Date getEndTime() {
+			return endTime.get();
+		}
+
+		/**
+		 * Marks one of the feature's scenarios as finished
+		 *
+		 * @return true if it was the last scenario of the feature
+		 */
+		public boolean finishScenario() {
+			return remainingScenarios.decrementAndGet() == 0;
+		}
+
+		/**
+		 * Returns the serial number of an example row inside its scenario outline
+		 *
+		 * @param line an example row line number
+		 * @return one-based outline iteration number or zero if the line is not an example row
+		 */
+		public int getOutlineIteration(int line) {
+			return currentFeature.getOutlineIteration(line);
+		}
+
+		public ParsedScenario getScenario(TestCase testCase) {
+			ParsedScenario scenario = currentFeature.getScenario(testCase.getLine());
+			if (scenario == null) {
+				throw new IllegalStateException("Scenario can't be null!");
+			}
+			return scenario;
 		}
 	}
 
 	public static class ScenarioContext {
-		private static final Map<ScenarioDefinition, List<Integer>> scenarioOutlineMap = new ConcurrentHashMap<>();
-
-		private final Queue<Step> backgroundSteps = new ArrayDeque<>();
-		private final Map<Integer, Step> scenarioLocationMap = new HashMap<>();
 		private Maybe<String> currentStepId;
 		private Maybe<String> hookStepId;
 		private Status hookStatus;
 		private Maybe<String> id;
-		private Background background;
-		private ScenarioDefinition scenario;
+		private ParsedFeature feature;
+		private ParsedScenario background;
+		private ParsedScenario scenario;
 		private TestCase testCase;
-		private boolean hasBackground = false;
+		private int remainingBackgroundSteps;
 		private String outlineIteration;
 		private URI uri;
 		private String text;
-
-		public void processScenario(ScenarioDefinition scenario) {
+		private String name;
+		private String keyword;
+		private int line = -1;
+		private int featureId = -1;
+		private volatile boolean failed;
+		private final ReportingClock.Sequence timeline = new ReportingClock.Sequence();
+
+		public void processScenario(ParsedFeature feature, ParsedScenario scenario) {
+			this.feature = feature;
 			this.scenario = scenario;
-			for (Step step : scenario.getSteps()) {
-				scenarioLocationMap.put(step.getLocation().getLine(), step);
-			}
+			name = scenario.getName();
+			keyword = scenario.getKeyword();
 		}
 
-		public void processBackground(Background background) {
+		public void processBackground(ParsedScenario background) {
 			if (background != null) {
 				this.background = background;
-				hasBackground = true;
-				backgroundSteps.addAll(background.getSteps());
-				mapBackgroundSteps(background);
+				remainingBackgroundSteps = background.getSteps().size();
 			}
 		}
 
 		/**
 		 * Takes the serial number of scenario outline and links it to the executing scenario
 		 *
-		 * @param scenarioOutline Cucumber's ScenarioDefinition object
+		 * @param scenarioOutline parsed scenario outline
+		 * @param iteration       one-based outline iteration number, see {@link FeatureContext#getOutlineIteration(int)}
 		 **/
-		public void processScenarioOutline(ScenarioDefinition scenarioOutline) {
+		public void processScenarioOutline(ParsedScenario scenarioOutline, int iteration) {
 			if (isScenarioOutline(scenarioOutline)) {
-				scenarioOutlineMap.computeIfAbsent(scenarioOutline,
-						k -> ((ScenarioOutline) scenarioOutline).getExamples()
-								.stream()
-								.flatMap(e -> e.getTableBody().stream())
-								.map(r -> r.getLocation().getLine())
-								.collect(Collectors.toList())
-				);
-				int iterationIdx = IntStream.range(0, scenarioOutlineMap.get(scenarioOutline).size())
-						.filter(i -> getLine() == scenarioOutlineMap.get(scenarioOutline).get(i))
-						.findFirst()
-						.orElseThrow(() -> new IllegalStateException(String.format("No outline iteration number found for scenario %s:%s",
-								uri,
-								getLine()
-						)));
-				outlineIteration = String.format("[%d]", iterationIdx + 1);
+				if (iteration <= 0) {
+					throw new IllegalStateException(String.format("No outline iteration number found for scenario %s:%s", uri, getLine()));
+				}
+				outlineIteration = "[" + iteration + "]";
 			}
 		}
 
+		/**
+		 * Does nothing, background steps are looked up in the line index of the scenario's feature
+		 *
+		 * @param background Cucumber's Background object
+		 * @deprecated steps are resolved by {@link #getStep(TestStep)} without mapping
+		 */
+		@Deprecated
+		@SuppressWarnings("unused")
 		public void mapBackgroundSteps(Background background) {
-			for (Step step : background.getSteps()) {
-				scenarioLocationMap.put(step.getLocation().getLine(), step);
-			}
 		}
 
 		public String getName() {
-			return scenario.getName();
+			return name;
 		}
 
 		public String getKeyword() {
-			return scenario.getKeyword();
+			return keyword;
 		}
 
 		public int getLine() {
-			return isScenarioOutline(scenario) ? testCase.getLine() : scenario.getLocation().getLine();
+			if (line < 0) {
+				line = isScenarioOutline(scenario) ? testCase.getLine() : scenario.getLine();
+			}
+			return line;
 		}
 
 		public String getStepPrefix() {
 			return hasBackground() && withBackground() ? background.getKeyword().toUpperCase() + AbstractReporter.COLON_INFIX : "";
 		}
 
-		public Step getStep(TestStep testStep) {
+		public ParsedStep getStep(TestStep testStep) {
 			PickleStepTestStep pickleStepTestStep = (PickleStepTestStep) testStep;
-			Step step = scenarioLocationMap.get(pickleStepTestStep.getStep().getLine());
+			ParsedStep step = feature.getStep(pickleStepTestStep.getStep().getLine());
 			if (step != null) {
 				return step;
 			}
@@ -238,19 +644,31 @@ public class RunningContext {
 		}
 
 		public void nextBackgroundStep() {
-			backgroundSteps.poll();
+			if (remainingBackgroundSteps > 0) {
+				remainingBackgroundSteps--;
+			}
 		}
 
+		public boolean isScenarioOutline(ParsedScenario scenario) {
+			return scenario != null && scenario.isOutline();
+		}
+
+		/**
+		 * @param scenario Cucumber's ScenarioDefinition object
+		 * @return true if the scenario is a scenario outline
+		 * @deprecated use {@link #isScenarioOutline(ParsedScenario)}
+		 */
+		@Deprecated
 		public boolean isScenarioOutline(ScenarioDefinition scenario) {
 			return scenario instanceof ScenarioOutline;
 		}
 
 		public boolean withBackground() {
-			return !backgroundSteps.isEmpty();
+			return remainingBackgroundSteps > 0;
 		}
 
 		public boolean hasBackground() {
-			return hasBackground && background != null;
+			return background != null;
 		}
 
 		public String getOutlineIteration() {
@@ -281,6 +699,25 @@ public class RunningContext {
 			this.hookStatus = hookStatus;
 		}
 
+		/**
+		 * @return true if a step or a hook of the scenario has failed so far
+		 */
+		public boolean isFailed() {
+			return failed;
+		}
+
+		/**
+		 * @return the sequence which keeps timestamps of the scenario and its steps strictly increasing
+		 */
+		@Nonnull
+		public ReportingClock.Sequence getTimeline() {
+			return timeline;
+		}
+
+		public void setFailed(boolean failed) {
+			this.failed = failed;
+		}
+
 		public void setFeatureUri(URI featureUri) {
 			this.uri = featureUri;
 		}
@@ -289,6 +726,17 @@ public class RunningContext {
 			return uri;
 		}
 
+		public void setFeatureId(int id) {
+			featureId = id;
+		}
+
+		/**
+		 * @return a dense ID of the scenario's feature, see {@link FeatureContext#getId()}
+		 */
+		public int getFeatureId() {
+			return featureId;
+		}
+
 		public void setCurrentText(String stepText) {
 			this.text = stepText;
 		}
@@ -300,5 +748,22 @@ public class RunningContext {
 		public TestCase getTestCase() {
 			return testCase;
 		}
+
+		/**
+		 * Releases references to the test case, parsed feature and step items once the scenario is finished. Only resolved
+		 * identifiers are kept: scenario item ID, feature URI, line, name, keyword and outline iteration.
+		 */
+		public void release() {
+			getLine();
+			feature = null;
+			background = null;
+			scenario = null;
+			testCase = null;
+			currentStepId = null;
+			hookStepId = null;
+			hookStatus = null;
+			text = null;
+			remainingBackgroundSteps = 0;
+		}
 	}
 }
@@ -23,7 +23,7 @@ import io.cucumber.plugin.event.TestStep;
 import io.reactivex.Maybe;
 
 import javax.annotation.Nonnull;
-import java.util.Calendar;
+import java.util.Date;
 import java.util.Optional;
 
 /**
@@ -123,12 +123,14 @@ public class ScenarioReporter extends AbstractReporter {
 	 * Start root suite
 	 */
 	protected void startRootItem() {
+		/* should no be lazy */
+		final Date startTime = getCurrentTime();
 		rootSuiteId = new MemoizingSupplier<>(() -> {
 			StartTestItemRQ rq = new StartTestItemRQ();
 			rq.setName(DUMMY_ROOT_SUITE_NAME);
-			rq.setStartTime(Calendar.getInstance().getTime());
+			rq.setStartTime(startTime);
 			rq.setType(RP_STORY_TYPE);
-			return launch.get().startTestItem(rq);
+			return getReportingBudget().start(() -> launch.get().startTestItem(rq));
 		});
 	}
 }
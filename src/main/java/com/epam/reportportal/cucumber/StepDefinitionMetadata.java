@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.annotations.TestCaseId;
+import com.epam.reportportal.annotations.attribute.Attributes;
+import com.epam.reportportal.utils.AttributeParser;
+import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Step definition data which doesn't change from one step execution to another: code reference, step definition
+ * method, its {@link Attributes} and {@link TestCaseId} annotations. Resolved once per step definition object to avoid
+ * reflection calls on every step.
+ */
+public class StepDefinitionMetadata {
+	private static final Logger LOGGER = LoggerFactory.getLogger(StepDefinitionMetadata.class);
+	private static final String METHOD_OPENING_BRACKET = "(";
+
+	private final String codeRef;
+	private final Method method;
+	private final Set<ItemAttributesRQ> attributes;
+	private final TestCaseId testCaseId;
+
+	private StepDefinitionMetadata(@Nullable String codeRef, @Nullable Method method, @Nullable Set<ItemAttributesRQ> attributes,
+			@Nullable TestCaseId testCaseId) {
+		this.codeRef = codeRef;
+		this.method = method;
+		this.attributes = attributes;
+		this.testCaseId = testCaseId;
+	}
+
+	/**
+	 * Resolves step definition data with reflection
+	 *
+	 * @param stepDefinition Cucumber's step definition object
+	 * @return resolved step definition data
+	 */
+	@Nonnull
+	public static StepDefinitionMetadata resolve(@Nonnull Object stepDefinition) {
+		Method method = Utils.getMethod(stepDefinition);
+		Set<ItemAttributesRQ> attributes = null;
+		TestCaseId testCaseId = null;
+		if (method != null) {
+			Attributes attributesAnnotation = method.getAnnotation(Attributes.class);
+			if (attributesAnnotation != null) {
+				attributes = Collections.unmodifiableSet(AttributeParser.retrieveAttributes(attributesAnnotation));
+			}
+			testCaseId = method.getAnnotation(TestCaseId.class);
+		}
+		return new StepDefinitionMetadata(resolveCodeRef(stepDefinition), method, attributes, testCaseId);
+	}
+
+	@Nullable
+	private static String resolveCodeRef(@Nonnull Object stepDefinition) {
+		try {
+			Object codeLocationObject = Utils.getLocation(stepDefinition);
+			if (codeLocationObject != null) {
+				String codeLocation = codeLocationObject.toString();
+				if (isNotBlank(codeLocation)) {
+					int openingBracketIndex = codeLocation.indexOf(METHOD_OPENING_BRACKET);
+					return openingBracketIndex > 0 ? codeLocation.substring(0, openingBracketIndex) : codeLocation;
+				}
+			}
+		} catch (Throwable e) {
+			LOGGER.error("Unable to get java code reference for the Step Definition: " + stepDefinition, e);
+		}
+		return null;
+	}
+
+	/**
+	 * Run-scoped cache of step definition data. Step definition classes do not define equality, so the cache compares
+	 * keys by identity.
+	 */
+	public static class Cache {
+		private final Map<IdentityKey, StepDefinitionMetadata> cache = new ConcurrentHashMap<>();
+
+		/**
+		 * Returns step definition data, resolving it on the first call for the given step definition object
+		 *
+		 * @param stepDefinition Cucumber's step definition object
+		 * @return resolved step definition data
+		 */
+		@Nonnull
+		public StepDefinitionMetadata get(@Nonnull Object stepDefinition) {
+			IdentityKey key = new IdentityKey(stepDefinition);
+			StepDefinitionMetadata result = cache.get(key);
+			if (result == null) {
+				result = cache.computeIfAbsent(key, k -> resolve(stepDefinition));
+			}
+			return result;
+		}
+	}
+
+	private static final class IdentityKey {
+		private final Object value;
+
+		private IdentityKey(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof IdentityKey && ((IdentityKey) o).value == value;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(value);
+		}
+	}
+
+	/**
+	 * @return a code reference or null if it's not possible to determine
+	 */
+	@Nullable
+	public String getCodeRef() {
+		return codeRef;
+	}
+
+	/**
+	 * @return step definition method or null if it's not a Java step definition
+	 */
+	@Nullable
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return unmodifiable set of attributes from {@link Attributes} annotation or null if there is no such annotation
+	 */
+	@Nullable
+	public Set<ItemAttributesRQ> getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * @return {@link TestCaseId} annotation of the step definition method or null if there is no such annotation
+	 */
+	@Nullable
+	public TestCaseId getTestCaseId() {
+		return testCaseId;
+	}
+}
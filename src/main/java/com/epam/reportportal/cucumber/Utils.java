@@ -21,6 +21,12 @@ import io.cucumber.plugin.event.Argument;
 import io.cucumber.plugin.event.Status;
 import io.cucumber.plugin.event.TestStep;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -36,6 +42,7 @@ public class Utils {
 	private static final String DEFINITION_MATCH_FIELD_NAME = "definitionMatch";
 	private static final String STEP_DEFINITION_FIELD_NAME = "stepDefinition";
 	private static final String METHOD_FIELD_NAME = "method";
+	private static final String GET_LOCATION_METHOD_NAME = "getLocation";
 
 	private Utils() {
 		throw new AssertionError("No instances should exist for the class!");
@@ -75,11 +82,75 @@ public class Utils {
 		return (prefix == null ? EMPTY : prefix) + infix + argument;
 	}
 
+	/**
+	 * Per runtime class accessor of an object member. The member is resolved into a {@link MethodHandle} once per class,
+	 * if that's not possible (e.g. Cucumber internals differ or access is denied) the accessor falls back to the
+	 * reflection lookup on each call.
+	 */
+	private static final class MemberAccessor extends ClassValue<Optional<MethodHandle>> {
+		private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+		private final String name;
+		private final boolean isField;
+
+		private MemberAccessor(String memberName, boolean field) {
+			name = memberName;
+			isField = field;
+		}
+
+		@Override
+		protected Optional<MethodHandle> computeValue(Class<?> type) {
+			for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+				try {
+					MethodHandle handle;
+					if (isField) {
+						Field field = c.getDeclaredField(name);
+						field.setAccessible(true);
+						handle = MethodHandles.lookup().unreflectGetter(field);
+					} else {
+						Method method = c.getDeclaredMethod(name);
+						method.setAccessible(true);
+						handle = MethodHandles.lookup().unreflect(method);
+					}
+					return Optional.of(handle.asType(GETTER_TYPE));
+				} catch (NoSuchFieldException | NoSuchMethodException ignore) {
+					// look in the superclass
+				} catch (IllegalAccessException | RuntimeException e) {
+					return Optional.empty();
+				}
+			}
+			return Optional.empty();
+		}
+
+		@Nullable
+		private Object access(@Nonnull Object target) throws Throwable {
+			Optional<MethodHandle> handle = get(target.getClass());
+			if (handle.isPresent()) {
+				return (Object) handle.get().invokeExact(target);
+			}
+			return isField ? Accessible.on(target).field(name).getValue() : Accessible.on(target).method(name).invoke();
+		}
+
+		@Nullable
+		private Object getOrNull(@Nonnull Object target) {
+			try {
+				return access(target);
+			} catch (Throwable e) {
+				return null;
+			}
+		}
+	}
+
+	private static final MemberAccessor DEFINITION_MATCH_ACCESSOR = new MemberAccessor(DEFINITION_MATCH_FIELD_NAME, true);
+	private static final MemberAccessor STEP_DEFINITION_ACCESSOR = new MemberAccessor(STEP_DEFINITION_FIELD_NAME, true);
+	private static final MemberAccessor METHOD_ACCESSOR = new MemberAccessor(METHOD_FIELD_NAME, true);
+	private static final MemberAccessor GET_LOCATION_ACCESSOR = new MemberAccessor(GET_LOCATION_METHOD_NAME, false);
+
 	public static Method retrieveMethod(Object stepDefinitionMatch) throws IllegalAccessException, NoSuchFieldException {
-		Object javaStepDefinition = Accessible.on(stepDefinitionMatch).field(STEP_DEFINITION_FIELD_NAME).getValue();
+		Object javaStepDefinition = getStepDefinition(stepDefinitionMatch);
 		Method method = null;
 		if (javaStepDefinition != null) {
-			method = (Method) Accessible.on(javaStepDefinition).field(METHOD_FIELD_NAME).getValue();
+			method = getMethod(javaStepDefinition);
 		}
 		return method;
 	}
@@ -88,10 +159,26 @@ public class Utils {
 			args -> args.stream().map(Argument::getValue).collect(Collectors.toList())).orElse(null);
 
 	public static Object getDefinitionMatch(TestStep testStep) {
-		try {
-			return Accessible.on(testStep).field(DEFINITION_MATCH_FIELD_NAME).getValue();
-		} catch (NoSuchFieldException e) {
-			return null;
-		}
+		return DEFINITION_MATCH_ACCESSOR.getOrNull(testStep);
+	}
+
+	public static Object getStepDefinition(Object stepDefinitionMatch) {
+		return STEP_DEFINITION_ACCESSOR.getOrNull(stepDefinitionMatch);
+	}
+
+	public static Method getMethod(Object stepDefinition) {
+		Object method = METHOD_ACCESSOR.getOrNull(stepDefinition);
+		return method instanceof Method ? (Method) method : null;
+	}
+
+	/**
+	 * Calls <code>getLocation</code> method of a step definition object
+	 *
+	 * @param stepDefinition Cucumber's step definition object
+	 * @return step definition location
+	 * @throws Throwable if the method is absent or fails
+	 */
+	public static Object getLocation(Object stepDefinition) throws Throwable {
+		return GET_LOCATION_ACCESSOR.access(stepDefinition);
 	}
 }
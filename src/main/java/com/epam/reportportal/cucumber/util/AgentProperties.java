@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber.util;
+
+import com.epam.reportportal.utils.properties.PropertiesLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Function;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Agent-specific <code>rp.cucumber.*</code> properties. They are read the same way as {@link
+ * com.epam.reportportal.listeners.ListenerParameters}: from <code>reportportal.properties</code> file, overridden by
+ * JVM system properties.
+ */
+public class AgentProperties {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AgentProperties.class);
+
+	private final Function<String, String> properties;
+
+	public AgentProperties(@Nonnull Function<String, String> propertySource) {
+		properties = propertySource;
+	}
+
+	/**
+	 * The client's properties loader overrides only listener parameters with system properties, so agent properties are
+	 * looked up in system properties first.
+	 *
+	 * @return agent properties loaded by the client's properties loader
+	 */
+	@Nonnull
+	public static AgentProperties load() {
+		PropertiesLoader loader = PropertiesLoader.load();
+		return new AgentProperties(key -> ofNullable(System.getProperty(key)).orElseGet(() -> loader.getProperty(key)));
+	}
+
+	/**
+	 * @param key a property name
+	 * @return trimmed property value or null if the property is not set or blank
+	 */
+	@Nullable
+	public String getString(@Nonnull String key) {
+		String value = properties.apply(key);
+		if (value == null || value.trim().isEmpty()) {
+			return null;
+		}
+		return value.trim();
+	}
+
+	/**
+	 * @param key          a property name
+	 * @param defaultValue a value to use if the property is not set
+	 * @return property value
+	 */
+	@Nonnull
+	public String getString(@Nonnull String key, @Nonnull String defaultValue) {
+		String value = getString(key);
+		return value == null ? defaultValue : value;
+	}
+
+	/**
+	 * @param key          a property name
+	 * @param defaultValue a value to use if the property is not set
+	 * @return property value
+	 */
+	public boolean getBoolean(@Nonnull String key, boolean defaultValue) {
+		String value = getString(key);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+
+	/**
+	 * @param key          a property name
+	 * @param defaultValue a value to use if the property is not set or is not a number
+	 * @return property value
+	 */
+	public int getInt(@Nonnull String key, int defaultValue) {
+		long value = getLong(key, defaultValue);
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			LOGGER.warn("Incorrect '{}' property value '{}', using {}", key, value, defaultValue);
+			return defaultValue;
+		}
+		return (int) value;
+	}
+
+	/**
+	 * @param key          a property name
+	 * @param defaultValue a value to use if the property is not set or is not a number
+	 * @return property value
+	 */
+	public long getLong(@Nonnull String key, long defaultValue) {
+		String value = getString(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			LOGGER.warn("Incorrect '{}' property value '{}', using {}", key, value, defaultValue);
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Thread-safe memoization cache which evicts the least recently used entries once its capacity is reached
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class BoundedCache<K, V> {
+	private final Map<K, V> cache;
+
+	public BoundedCache(final int capacity) {
+		cache = Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > capacity;
+			}
+		});
+	}
+
+	/**
+	 * Returns a cached value or calculates and caches it. Null values are not cached.
+	 *
+	 * @param key    a cache key
+	 * @param loader a function to calculate the value if it's absent
+	 * @return the value
+	 */
+	@Nullable
+	public V get(@Nonnull K key, @Nonnull Function<K, V> loader) {
+		V value = cache.get(key);
+		if (value == null) {
+			value = loader.apply(key);
+			if (value != null) {
+				cache.put(key, value);
+			}
+		}
+		return value;
+	}
+
+	@Nullable
+	public V getIfPresent(@Nonnull K key) {
+		return cache.get(key);
+	}
+
+	public void put(@Nonnull K key, @Nonnull V value) {
+		cache.put(key, value);
+	}
+
+	public int size() {
+		return cache.size();
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * Allocation-free MIME type detection by magic bytes for the most common attachment types: PNG, JPEG, GIF, PDF, ZIP,
+ * JSON, XML and plain text. Text types have no magic bytes, so they are recognized only if the content is consistent
+ * with the file name extension. Returns null if the type is not recognized, or may depend on the file name (e.g. a
+ * ZIP-based office document or a CSV file), so the caller can fall back to a full detector.
+ */
+public class MimeTypeSniffer {
+	public static final String PNG = "image/png";
+	public static final String JPEG = "image/jpeg";
+	public static final String GIF = "image/gif";
+	public static final String PDF = "application/pdf";
+	public static final String ZIP = "application/zip";
+	public static final String JSON = "application/json";
+	public static final String XML = "application/xml";
+	public static final String TEXT = "text/plain";
+
+	private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+	private static final byte[] JPEG_SIGNATURE = { (byte) 0xff, (byte) 0xd8, (byte) 0xff };
+	private static final byte[] GIF87_SIGNATURE = { 'G', 'I', 'F', '8', '7', 'a' };
+	private static final byte[] GIF89_SIGNATURE = { 'G', 'I', 'F', '8', '9', 'a' };
+	private static final byte[] PDF_SIGNATURE = { '%', 'P', 'D', 'F', '-' };
+	private static final byte[] ZIP_SIGNATURE = { 'P', 'K', 0x03, 0x04 };
+	private static final byte[] EMPTY_ZIP_SIGNATURE = { 'P', 'K', 0x05, 0x06 };
+	private static final byte[] XML_SIGNATURE = { '<', '?', 'x', 'm', 'l' };
+	private static final byte[] UTF8_BOM = { (byte) 0xef, (byte) 0xbb, (byte) 0xbf };
+
+	// The number of leading bytes checked for control characters to recognize a text
+	private static final int TEXT_PROBE_SIZE = 512;
+
+	private MimeTypeSniffer() {
+		throw new AssertionError("No instances should exist for the class!");
+	}
+
+	private static boolean startsWith(@Nonnull byte[] data, int offset, @Nonnull byte[] signature) {
+		if (data.length - offset < signature.length) {
+			return false;
+		}
+		for (int i = 0; i < signature.length; i++) {
+			if (data[offset + i] != signature[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+	}
+
+	@Nullable
+	private static String extension(@Nullable String name) {
+		if (name == null) {
+			return null;
+		}
+		int dot = name.lastIndexOf('.');
+		return dot < 0 || dot == name.length() - 1 ? null : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean isText(@Nonnull byte[] data, int offset) {
+		int end = Math.min(data.length, offset + TEXT_PROBE_SIZE);
+		for (int i = offset; i < end; i++) {
+			int b = data[i] & 0xff;
+			if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' || b == 0x7f) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Nullable
+	private static String sniffText(@Nonnull byte[] data) {
+		int start = startsWith(data, 0, UTF8_BOM) ? UTF8_BOM.length : 0;
+		if (!isText(data, start)) {
+			return null;
+		}
+		int first = start;
+		while (first < data.length && isWhitespace(data[first])) {
+			first++;
+		}
+		int last = data.length - 1;
+		while (last > first && isWhitespace(data[last])) {
+			last--;
+		}
+		if (first < data.length) {
+			if (data[first] == '{' && data[last] == '}' || data[first] == '[' && data[last] == ']') {
+				return JSON;
+			}
+			if (startsWith(data, first, XML_SIGNATURE)) {
+				return XML;
+			}
+		}
+		return TEXT;
+	}
+
+	/**
+	 * Detects a MIME type by the leading bytes of the data
+	 *
+	 * @param data attachment data
+	 * @param name attachment name, text types are recognized only if its extension confirms them, ZIP only if it has no
+	 *             other extension
+	 * @return the MIME type or null if it's not recognized
+	 */
+	@Nullable
+	public static String sniff(@Nonnull byte[] data, @Nullable String name) {
+		if (data.length == 0) {
+			return null;
+		}
+		if (startsWith(data, 0, PNG_SIGNATURE)) {
+			return PNG;
+		}
+		if (startsWith(data, 0, JPEG_SIGNATURE)) {
+			return JPEG;
+		}
+		if (startsWith(data, 0, GIF87_SIGNATURE) || startsWith(data, 0, GIF89_SIGNATURE)) {
+			return GIF;
+		}
+		if (startsWith(data, 0, PDF_SIGNATURE)) {
+			return PDF;
+		}
+		String extension = extension(name);
+		if (startsWith(data, 0, ZIP_SIGNATURE) || startsWith(data, 0, EMPTY_ZIP_SIGNATURE)) {
+			// jar, docx, xlsx and other ZIP-based formats are told apart by name
+			return extension == null || "zip".equals(extension) ? ZIP : null;
+		}
+		if (extension == null) {
+			return null;
+		}
+		String text = sniffText(data);
+		if (text == null) {
+			return null;
+		}
+		switch (extension) {
+			case "json":
+				return JSON.equals(text) ? JSON : null;
+			case "xml":
+				return XML.equals(text) ? XML : null;
+			case "txt":
+			case "log":
+				return TEXT;
+			default:
+				// e.g. csv, html or yaml, let the full detector decide
+				return null;
+		}
+	}
+}
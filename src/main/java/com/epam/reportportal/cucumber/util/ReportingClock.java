@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Time source for item and log timestamps. While a Cucumber event is being handled the clock returns the instant
+ * carried by that event, so the timestamps do not depend on how fast or when the event is handled. Otherwise it falls
+ * back to the underlying {@link Clock}, which has microsecond resolution on modern JVMs.
+ * <p>
+ * Timestamps are kept as {@link Instant}s and converted to {@link Date} only when a request is built, since
+ * ReportPortal client requests take dates. The conversion truncates a timestamp to milliseconds, so timestamps of one
+ * item which differ by less than a millisecond become equal in the requests and keep their order only by the order of
+ * the requests.
+ */
+public class ReportingClock {
+	// The step which tells apart instants of one item, the resolution of the underlying clock
+	private static final Duration TIEBREAK = Duration.ofNanos(1_000);
+
+	private final Clock clock;
+	private final ThreadLocal<Instant> eventInstant = new ThreadLocal<>();
+
+	public ReportingClock() {
+		this(Clock.systemUTC());
+	}
+
+	public ReportingClock(@Nonnull Clock baseClock) {
+		clock = baseClock;
+	}
+
+	/**
+	 * @return the instant of currently handled event, or the current instant of the underlying clock
+	 */
+	@Nonnull
+	public Instant instant() {
+		Instant instant = eventInstant.get();
+		return instant == null ? clock.instant() : instant;
+	}
+
+	/**
+	 * @return the same as {@link #instant()} converted to {@link Date}, truncated to milliseconds
+	 */
+	@Nonnull
+	public Date now() {
+		return toDate(instant());
+	}
+
+	/**
+	 * Converts an instant to a date for a request, the sub-millisecond part of the instant is truncated
+	 *
+	 * @param instant an instant
+	 * @return a date
+	 */
+	@Nonnull
+	public static Date toDate(@Nonnull Instant instant) {
+		return Date.from(instant);
+	}
+
+	/**
+	 * Runs an action with the clock pinned to the given instant in the current thread
+	 *
+	 * @param instant an event instant, if null the underlying clock is used
+	 * @param action  an action to run
+	 */
+	public void runAt(@Nullable Instant instant, @Nonnull Runnable action) {
+		Instant previous = eventInstant.get();
+		eventInstant.set(instant);
+		try {
+			action.run();
+		} finally {
+			if (previous == null) {
+				eventInstant.remove();
+			} else {
+				eventInstant.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Monotonic sequence of instants of one item. Events of an item may carry equal instants, e.g. a step finish and the
+	 * next step start, the sequence keeps them strictly increasing.
+	 */
+	public static class Sequence {
+		private final AtomicReference<Instant> last = new AtomicReference<>();
+
+		/**
+		 * @param instant a candidate instant
+		 * @return the candidate if it's after the previous instant of the sequence, or the previous instant plus a
+		 * microsecond otherwise
+		 */
+		@Nonnull
+		public Instant next(@Nonnull Instant instant) {
+			return last.accumulateAndGet(instant,
+					(previous, current) -> previous == null || current.isAfter(previous) ? current : previous.plus(TIEBREAK)
+			);
+		}
+	}
+}
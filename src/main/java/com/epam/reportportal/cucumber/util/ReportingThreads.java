@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Threads for the agent's own reporting work. On JDK 21+ virtual threads are used, so reporting threads blocked on
+ * client calls don't occupy platform threads. On older JVMs, or if {@value #VIRTUAL_THREADS_PROPERTY} property is set
+ * to <code>false</code>, daemon platform threads are used.
+ * <p>
+ * Only the agent's own threads come from here: pipeline consumers and deferred reporting workers, which make blocking
+ * client calls, the bounded feature parser and image processing pools, and the attachment spool writer. Without the
+ * pipeline or deferred reporting item and log requests are still built and sent on Cucumber's test threads.
+ * <p>
+ * The project targets Java 8, so the virtual thread API is looked up with reflection once per class load instead of a
+ * multi-release JAR. The lookup creates a probe thread and checks it's virtual: on JDK 19 and 20 the API exists but
+ * is a preview feature and fails unless the preview is enabled.
+ */
+public class ReportingThreads {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportingThreads.class);
+
+	public static final String VIRTUAL_THREADS_PROPERTY = "rp.cucumber.virtual.threads";
+
+	private static final Method OF_VIRTUAL = lookupOfVirtual();
+
+	private ReportingThreads() {
+		throw new AssertionError("No instances should exist for the class!");
+	}
+
+	@Nullable
+	private static Method lookupOfVirtual() {
+		if (!AgentProperties.load().getBoolean(VIRTUAL_THREADS_PROPERTY, true)) {
+			return null;
+		}
+		try {
+			Method ofVirtual = Thread.class.getMethod("ofVirtual");
+			ThreadFactory factory = virtualThreadFactory(ofVirtual, "rp-virtual-probe-");
+			Thread probe = factory.newThread(() -> {
+			});
+			if (Boolean.TRUE.equals(Thread.class.getMethod("isVirtual").invoke(probe))) {
+				return ofVirtual;
+			}
+			LOGGER.warn("Virtual thread factory creates platform threads, using platform threads");
+		} catch (NoSuchMethodException e) {
+			// JDK without virtual threads
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LOGGER.warn("Virtual threads are not available, using platform threads", e);
+		}
+		return null;
+	}
+
+	@Nonnull
+	private static ThreadFactory virtualThreadFactory(@Nonnull Method ofVirtual, @Nonnull String namePrefix)
+			throws ReflectiveOperationException {
+		Object builder = ofVirtual.invoke(null);
+		Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+		builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+		return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+	}
+
+	/**
+	 * @return true if reporting threads are virtual
+	 */
+	public static boolean isVirtual() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Creates a factory of reporting threads
+	 *
+	 * @param namePrefix thread name prefix, a thread number is appended to it
+	 * @return virtual thread factory on JDK 21+, daemon platform thread factory otherwise
+	 */
+	@Nonnull
+	public static ThreadFactory threadFactory(@Nonnull String namePrefix) {
+		if (OF_VIRTUAL != null) {
+			try {
+				return virtualThreadFactory(OF_VIRTUAL, namePrefix);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				LOGGER.warn("Unable to create virtual thread factory, using platform threads", e);
+			}
+		}
+		return platformThreadFactory(namePrefix);
+	}
+
+	@Nonnull
+	private static ThreadFactory platformThreadFactory(@Nonnull String namePrefix) {
+		AtomicLong counter = new AtomicLong();
+		return task -> {
+			Thread thread = new Thread(task, namePrefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Creates an executor for reporting tasks
+	 *
+	 * @param namePrefix      thread name prefix, a thread number is appended to it
+	 * @param platformThreads the number of threads if virtual threads are not available
+	 * @return virtual-thread-per-task executor on JDK 21+, fixed pool of daemon platform threads otherwise
+	 */
+	@Nonnull
+	public static ExecutorService newExecutor(@Nonnull String namePrefix, int platformThreads) {
+		if (OF_VIRTUAL != null) {
+			try {
+				// a thread per task is only affordable with virtual threads, so both steps must succeed
+				ThreadFactory factory = virtualThreadFactory(OF_VIRTUAL, namePrefix);
+				return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+						.invoke(null, factory);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				LOGGER.warn("Unable to create virtual thread executor, using platform threads", e);
+			}
+		}
+		return Executors.newFixedThreadPool(Math.max(1, platformThreads), platformThreadFactory(namePrefix));
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class AttachmentSpoolTest {
+
+	private static final byte[] DATA = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+	@TempDir
+	Path directory;
+
+	private long fileNumber() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	public void verify_spilled_attachment_file_is_deleted_once_released() throws IOException {
+		AttachmentSpool spool = new AttachmentSpool(directory, 5, Runnable::run);
+		assertThat(spool.accepts(5), equalTo(false));
+		assertThat(spool.accepts(6), equalTo(true));
+
+		AttachmentSpool.Spilled first = spool.spill(DATA);
+		AttachmentSpool.Spilled second = spool.spill(DATA);
+		assertThat(first.isOnDisk(), equalTo(true));
+		assertThat(fileNumber(), equalTo(2L));
+
+		assertThat(spool.release(first), equalTo(DATA));
+		assertThat(fileNumber(), equalTo(1L));
+
+		spool.cleanUp();
+		assertThat(second.isOnDisk(), equalTo(false));
+		assertThat(fileNumber(), equalTo(0L));
+	}
+
+	@Test
+	public void verify_attachment_is_kept_in_memory_until_written() throws IOException {
+		List<Runnable> writes = new ArrayList<>();
+		AttachmentSpool spool = new AttachmentSpool(directory, 5, writes::add);
+
+		AttachmentSpool.Spilled attachment = spool.spill(DATA);
+		assertThat(attachment.isOnDisk(), equalTo(false));
+		assertThat(spool.release(attachment), equalTo(DATA));
+
+		// the write which was scheduled on the writer doesn't leave a file behind
+		writes.forEach(Runnable::run);
+		assertThat(fileNumber(), equalTo(0L));
+	}
+}
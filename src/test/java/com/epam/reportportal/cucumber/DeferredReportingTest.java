@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import io.cucumber.plugin.event.EmbedEvent;
+import io.cucumber.plugin.event.EventHandler;
+import io.cucumber.plugin.event.TestCase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class DeferredReportingTest {
+
+	private static final String SCENARIO = "scenario";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void verify_scenario_events_are_replayed_in_order_on_one_worker_thread_after_scenario_finish() {
+		DeferredReporting deferred = new DeferredReporting(Executors.newFixedThreadPool(2), null);
+		List<String> handled = Collections.synchronizedList(new ArrayList<>());
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		EventHandler<String> handler = e -> {
+			handled.add(e);
+			threads.add(Thread.currentThread().getName());
+		};
+
+		deferred.begin(SCENARIO, handler, "scenario started");
+		// events of a scenario may arrive on any thread
+		CompletableFuture.runAsync(() -> deferred.record(SCENARIO, handler, "step started")).join();
+		deferred.record(SCENARIO, handler, "log");
+		deferred.record(SCENARIO, handler, "step finished");
+		assertThat(handled, empty());
+
+		deferred.complete(SCENARIO, handler, "scenario finished");
+		deferred.shutdown();
+
+		assertThat(handled, equalTo(Arrays.asList("scenario started", "step started", "log", "step finished", "scenario finished")));
+		assertThat(threads, hasSize(1));
+		assertThat(threads, not(contains(Thread.currentThread().getName())));
+	}
+
+	@Test
+	public void verify_events_outside_of_scenario_are_handled_immediately() {
+		DeferredReporting deferred = new DeferredReporting(Executors.newSingleThreadExecutor(), null);
+		List<String> threads = new ArrayList<>();
+
+		deferred.record(SCENARIO, e -> threads.add(Thread.currentThread().getName()), "log");
+		deferred.shutdown();
+
+		assertThat(threads, contains(Thread.currentThread().getName()));
+	}
+
+	@Test
+	public void verify_recorded_embedding_is_spilled_to_disk_and_deleted_once_replayed() throws IOException {
+		DeferredReporting deferred = new DeferredReporting(Executors.newSingleThreadExecutor(),
+				new AttachmentSpool(directory, 5, Runnable::run)
+		);
+		TestCase testCase = mock(TestCase.class);
+		byte[] data = "large attachment".getBytes(StandardCharsets.UTF_8);
+		Instant instant = Instant.now();
+		List<EmbedEvent> embeddings = new ArrayList<>();
+
+		deferred.begin(testCase, e -> {}, "scenario started");
+		deferred.recordEmbedding(testCase, embeddings::add, new EmbedEvent(instant, testCase, data, "text/plain", "attachment.txt"));
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files.count(), equalTo(1L));
+		}
+		deferred.complete(testCase, e -> {}, "scenario finished");
+		deferred.shutdown();
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files.count(), equalTo(0L));
+		}
+
+		assertThat(embeddings, hasSize(1));
+		EmbedEvent embedding = embeddings.get(0);
+		assertThat(embedding.getData(), equalTo(data));
+		assertThat(embedding.getName(), equalTo("attachment.txt"));
+		assertThat(embedding.getMediaType(), equalTo("text/plain"));
+		assertThat(embedding.getInstant(), equalTo(instant));
+		assertThat(embedding.getTestCase(), sameInstance(testCase));
+	}
+}
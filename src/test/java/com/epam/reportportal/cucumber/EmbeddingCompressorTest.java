@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EmbeddingCompressorTest {
+
+	private static final byte[] JSON;
+
+	static {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 500; i++) {
+			json.append("{\"id\":").append(i).append(",\"name\":\"fixture item\"},");
+		}
+		JSON = json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] readAll(InputStream stream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = stream.read(buffer)) >= 0) {
+			result.write(buffer, 0, read);
+		}
+		return result.toByteArray();
+	}
+
+	@Test
+	public void verify_gzip_archive_keeps_data_and_original_name() throws IOException {
+		EmbeddingCompressor compressor = new EmbeddingCompressor(EmbeddingCompressor.Format.GZIP, 1024);
+
+		EmbeddingCompressor.Compressed compressed = compressor.compress(JSON, "application/json; charset=UTF-8", "fixture");
+
+		assertThat(compressed, notNullValue());
+		assertThat(compressed.getName(), equalTo("fixture.json.gz"));
+		assertThat(compressed.getMimeType(), equalTo("application/gzip"));
+		assertThat(compressed.getData().length, lessThan(JSON.length / 5));
+		String header = new String(compressed.getData(), 10, "fixture.json".length(), StandardCharsets.ISO_8859_1);
+		assertThat(header, equalTo("fixture.json"));
+		try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(compressed.getData()))) {
+			assertThat(readAll(stream), equalTo(JSON));
+		}
+	}
+
+	@Test
+	public void verify_zip_archive_keeps_data_and_original_name() throws IOException {
+		EmbeddingCompressor compressor = new EmbeddingCompressor(EmbeddingCompressor.Format.ZIP, 1024);
+
+		EmbeddingCompressor.Compressed compressed = compressor.compress(JSON, "text/plain", "server.log");
+
+		assertThat(compressed, notNullValue());
+		assertThat(compressed.getName(), equalTo("server.log.zip"));
+		assertThat(compressed.getMimeType(), equalTo("application/zip"));
+		try (ZipInputStream stream = new ZipInputStream(new ByteArrayInputStream(compressed.getData()))) {
+			ZipEntry entry = stream.getNextEntry();
+			assertThat(entry.getName(), equalTo("server.log"));
+			assertThat(readAll(stream), equalTo(JSON));
+		}
+	}
+
+	@Test
+	public void verify_small_and_binary_attachments_are_not_compressed() {
+		EmbeddingCompressor compressor = new EmbeddingCompressor(EmbeddingCompressor.Format.GZIP, 1024);
+
+		assertThat(compressor.compress(JSON, "image/png", "screenshot"), nullValue());
+		assertThat(compressor.compress("{}".getBytes(StandardCharsets.UTF_8), "application/json", "empty"), nullValue());
+		assertThat(compressor.compress(JSON, null, "unknown"), nullValue());
+	}
+}
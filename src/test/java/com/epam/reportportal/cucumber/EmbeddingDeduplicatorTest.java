@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import io.reactivex.Maybe;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EmbeddingDeduplicatorTest {
+
+	@Test
+	public void verify_only_sent_content_is_referenced_and_saved_bytes_are_counted() {
+		EmbeddingDeduplicator deduplicator = new EmbeddingDeduplicator(EmbeddingDeduplicator.Policy.LINK, 16);
+		byte[] screenshot = new byte[2048];
+		Arrays.fill(screenshot, (byte) 7);
+		byte[] anotherScreenshot = Arrays.copyOf(screenshot, screenshot.length);
+		anotherScreenshot[100] = 8;
+		byte[] tiny = new byte[8];
+		Date sentTime = new Date();
+
+		String key = deduplicator.key(screenshot);
+		assertThat(key, notNullValue());
+		assertThat(deduplicator.find(key, screenshot.length), nullValue());
+		// the first copy was dropped, e.g. by the reporting budget, so it's not registered
+		assertThat(deduplicator.find(key, screenshot.length), nullValue());
+		deduplicator.register(key, new EmbeddingDeduplicator.Occurrence("login.png", "I log in", Maybe.just("item-uuid"), sentTime));
+
+		assertThat(deduplicator.find(deduplicator.key(anotherScreenshot), anotherScreenshot.length), nullValue());
+		EmbeddingDeduplicator.Occurrence first = deduplicator.find(deduplicator.key(Arrays.copyOf(screenshot, screenshot.length)),
+				screenshot.length
+		);
+		assertThat(first, notNullValue());
+		assertThat(first.getName(), equalTo("login.png"));
+		assertThat(first.getItemName(), equalTo("I log in"));
+		assertThat(first.getItemUuid(), equalTo("item-uuid"));
+		assertThat(first.getTime(), sameInstance(sentTime));
+		assertThat(deduplicator.key(tiny), nullValue());
+
+		assertThat(deduplicator.getSavedBytes(), equalTo(2048L));
+	}
+}
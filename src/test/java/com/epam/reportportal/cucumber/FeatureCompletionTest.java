@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestSourceRead;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.*;
+
+public class FeatureCompletionTest {
+
+	@ParameterizedTest
+	@CsvSource({ "src/test/resources/features/OneSimpleAndOneScenarioOutline.feature,2",
+			"src/test/resources/features/TwoScenarioOutlineParameters.feature,3",
+			"src/test/resources/features/BackgroundScenario.feature,2" })
+	public void verify_feature_is_completed_with_its_last_pickle(String path, int pickleNumber) throws IOException {
+		URI uri = Paths.get(path).toUri();
+		String source = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+		CompletableFuture<RunningContext.ParsedFeature> parsedFeature = RunningContext.FeatureContext.parseTestSource(new TestSourceRead(Instant.now(),
+				uri,
+				source
+		));
+		TestCase testCase = mock(TestCase.class, withSettings().stubOnly());
+		when(testCase.getUri()).thenReturn(uri);
+
+		RunningContext.FeatureContext featureContext = new RunningContext.FeatureContext(testCase, -1, parsedFeature);
+
+		assertThat(featureContext.getFeature().getPickleCount(), equalTo(pickleNumber));
+		for (int i = 1; i < pickleNumber; i++) {
+			assertThat(featureContext.finishScenario(), equalTo(false));
+		}
+		assertThat(featureContext.finishScenario(), equalTo(true));
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import io.cucumber.core.internal.gherkin.AstBuilder;
+import io.cucumber.core.internal.gherkin.Parser;
+import io.cucumber.core.internal.gherkin.TokenMatcher;
+import io.cucumber.core.internal.gherkin.ast.GherkinDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FeatureModelCacheTest {
+
+	private static final String FEATURE_PATH = "src/test/resources/features/BasicScenarioOutlineParameters.feature";
+	private static final String BACKGROUND_FEATURE_PATH = "src/test/resources/features/BackgroundScenario.feature";
+
+	private static RunningContext.ParsedFeature parse(String source) {
+		GherkinDocument document = new Parser<>(new AstBuilder()).parse(source, new TokenMatcher());
+		return new RunningContext.ParsedFeature(document.getFeature());
+	}
+
+	private static String read(String path) throws IOException {
+		return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+	}
+
+	private static void assertSameModel(RunningContext.ParsedFeature actual, RunningContext.ParsedFeature expected) {
+		assertThat(actual.getKeyword(), equalTo(expected.getKeyword()));
+		assertThat(actual.getName(), equalTo(expected.getName()));
+		assertThat(actual.getTags(), equalTo(expected.getTags()));
+		assertThat(actual.getBackground() == null, equalTo(expected.getBackground() == null));
+		assertThat(actual.getScenarios(), hasSize(expected.getScenarios().size()));
+		for (int i = 0; i < expected.getScenarios().size(); i++) {
+			RunningContext.ParsedScenario expectedScenario = expected.getScenarios().get(i);
+			RunningContext.ParsedScenario actualScenario = actual.getScenarios().get(i);
+			assertThat(actualScenario.getKeyword(), equalTo(expectedScenario.getKeyword()));
+			assertThat(actualScenario.getName(), equalTo(expectedScenario.getName()));
+			assertThat(actualScenario.getLine(), equalTo(expectedScenario.getLine()));
+			assertThat(actualScenario.isOutline(), equalTo(expectedScenario.isOutline()));
+			assertThat(actualScenario.getExampleLines(), equalTo(expectedScenario.getExampleLines()));
+			for (RunningContext.ParsedStep step : expectedScenario.getSteps()) {
+				RunningContext.ParsedStep actualStep = actual.getStep(step.getLine());
+				assertThat(actualStep, notNullValue());
+				assertThat(actualStep.getKeyword(), equalTo(step.getKeyword()));
+				assertThat(actualStep.getText(), equalTo(step.getText()));
+			}
+			for (int line : expectedScenario.getExampleLines()) {
+				assertThat(actual.getOutlineIteration(line), equalTo(expected.getOutlineIteration(line)));
+			}
+		}
+	}
+
+	@Test
+	public void verify_feature_model_is_parsed_once_and_then_read_from_cache(@TempDir Path cacheDirectory) throws IOException {
+		String source = read(FEATURE_PATH);
+		AtomicInteger parseCount = new AtomicInteger();
+		FeatureModelCache cache = new FeatureModelCache(cacheDirectory);
+
+		RunningContext.ParsedFeature cold = cache.get(source, s -> {
+			parseCount.incrementAndGet();
+			return parse(s);
+		});
+		RunningContext.ParsedFeature warm = cache.get(source, s -> {
+			parseCount.incrementAndGet();
+			return parse(s);
+		});
+
+		assertThat(parseCount.get(), equalTo(1));
+		assertThat(cacheDirectory.resolve(FeatureModelCache.hash(source) + ".bin").toFile().isFile(), equalTo(true));
+		assertThat(cold, notNullValue());
+		assertThat(warm, notNullValue());
+		assertSameModel(warm, cold);
+	}
+
+	@Test
+	public void verify_background_is_restored_from_cache(@TempDir Path cacheDirectory) throws IOException {
+		String source = read(BACKGROUND_FEATURE_PATH);
+		FeatureModelCache cache = new FeatureModelCache(cacheDirectory);
+
+		RunningContext.ParsedFeature cold = cache.get(source, FeatureModelCacheTest::parse);
+		RunningContext.ParsedFeature warm = cache.get(source, s -> {
+			throw new AssertionError("The feature should be read from cache");
+		});
+
+		assertThat(warm.getBackground(), notNullValue());
+		assertThat(warm.getBackground().getKeyword(), equalTo(cold.getBackground().getKeyword()));
+		assertThat(warm.getBackground().getSteps(), hasSize(cold.getBackground().getSteps().size()));
+		assertSameModel(warm, cold);
+	}
+
+	@Test
+	public void verify_corrupted_cache_file_falls_back_to_parsing(@TempDir Path cacheDirectory) throws IOException {
+		String source = read(FEATURE_PATH);
+		Files.write(cacheDirectory.resolve(FeatureModelCache.hash(source) + ".bin"), new byte[] { 1, 2, 3 });
+		FeatureModelCache cache = new FeatureModelCache(cacheDirectory);
+
+		RunningContext.ParsedFeature feature = cache.get(source, FeatureModelCacheTest::parse);
+
+		assertThat(feature, notNullValue());
+		assertSameModel(feature, parse(source));
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.integration.util.TestUtils;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
+import io.cucumber.plugin.event.*;
+import io.reactivex.Maybe;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.net.URI;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class FeatureRegistrationContentionTest {
+
+	private static final int THREAD_NUMBER = 64;
+
+	@Test
+	public void verify_slow_feature_start_does_not_block_scenarios_of_other_features() throws InterruptedException {
+		ReportPortal reportPortal = TestUtils.mockReportPortal(TestUtils.mockSyntheticLaunch(TestUtils.standardParameters()));
+
+		CountDownLatch slowFeatureRelease = new CountDownLatch(1);
+		AtomicInteger featureStarts = new AtomicInteger();
+		ScenarioReporter reporter = new ScenarioReporter() {
+			@Override
+			protected ReportPortal buildReportPortal() {
+				return reportPortal;
+			}
+
+			@Override
+			@Nonnull
+			protected Maybe<String> startFeature(@Nonnull StartTestItemRQ startFeatureRq) {
+				featureStarts.incrementAndGet();
+				if (startFeatureRq.getName().endsWith("feature 0")) {
+					try {
+						slowFeatureRelease.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.startFeature(startFeatureRq);
+			}
+		};
+		TestUtils.SyntheticEventBus bus = new TestUtils.SyntheticEventBus();
+		reporter.setEventPublisher(bus);
+
+		bus.send(new TestRunStarted(Instant.now()));
+		List<URI> features = new ArrayList<>(THREAD_NUMBER);
+		for (int i = 0; i < THREAD_NUMBER; i++) {
+			URI uri = URI.create("file:///synthetic/contention_" + i + ".feature");
+			features.add(uri);
+			bus.send(new TestSourceRead(Instant.now(),
+					uri,
+					"Feature: Synthetic feature " + i + "\n  Scenario: Synthetic scenario\n    Given I have empty step\n"
+			));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_NUMBER);
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch fastFinished = new CountDownLatch(THREAD_NUMBER - 1);
+		List<Future<?>> results = new ArrayList<>(THREAD_NUMBER);
+		for (int i = 0; i < THREAD_NUMBER; i++) {
+			URI uri = features.get(i);
+			boolean slow = i == 0;
+			results.add(executor.submit(() -> {
+				TestCase testCase = TestUtils.syntheticTestCase(uri, 2, "Synthetic scenario");
+				PickleStepTestStep step = TestUtils.syntheticEmptyStep(3);
+				start.await();
+				bus.send(new TestCaseStarted(Instant.now(), testCase));
+				bus.send(new TestStepStarted(Instant.now(), testCase, step));
+				bus.send(new TestStepFinished(Instant.now(), testCase, step, TestUtils.PASSED));
+				bus.send(new TestCaseFinished(Instant.now(), testCase, TestUtils.PASSED));
+				if (!slow) {
+					fastFinished.countDown();
+				}
+				return null;
+			}));
+		}
+		long startTime = System.nanoTime();
+		start.countDown();
+		boolean othersFinished = fastFinished.await(30, TimeUnit.SECONDS);
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		slowFeatureRelease.countDown();
+		for (Future<?> result : results) {
+			try {
+				result.get(30, TimeUnit.SECONDS);
+			} catch (ExecutionException | TimeoutException e) {
+				throw new AssertionError(e);
+			}
+		}
+		executor.shutdown();
+		bus.send(new TestRunFinished(Instant.now()));
+
+		assertThat("Scenarios of other features were blocked by a slow feature start, waited " + elapsed + " ms",
+				othersFinished,
+				equalTo(true)
+		);
+		assertThat(featureStarts.get(), equalTo(THREAD_NUMBER));
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FeatureRegistryTest {
+
+	@Test
+	public void verify_features_get_dense_ids_and_slots_are_reusable() {
+		FeatureRegistry<String> registry = new FeatureRegistry<>();
+		int featureNumber = 3000; // more than one chunk
+		String[] values = new String[featureNumber];
+		for (int i = 0; i < featureNumber; i++) {
+			int id = registry.register(URI.create("file:///features/feature_" + i + ".feature"));
+			assertThat(id, equalTo(i));
+			values[i] = "feature " + i;
+			assertThat(registry.putIfAbsent(id, values[i]), nullValue());
+		}
+
+		int id = registry.register(URI.create("file:///features/feature_2500.feature"));
+		assertThat(id, equalTo(2500));
+		assertThat(registry.get(id), equalTo("feature 2500"));
+		assertThat(registry.putIfAbsent(id, "another"), equalTo("feature 2500"));
+
+		assertThat(registry.remove(id, "another"), equalTo(false));
+		// slots are compared by identity
+		assertThat(registry.remove(id, values[id]), equalTo(true));
+		assertThat(registry.get(id), nullValue());
+		assertThat(registry.values(), hasSize(featureNumber - 1));
+		assertThat(registry.get(featureNumber + 5000), nullValue());
+	}
+}
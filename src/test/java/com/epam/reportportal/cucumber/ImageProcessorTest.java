@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.util.AgentProperties;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ImageProcessorTest {
+
+	private static byte[] screenshot(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, Color.BLUE, width, height, Color.ORANGE));
+		graphics.fillRect(0, 0, width, height);
+		graphics.dispose();
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", result);
+		return result.toByteArray();
+	}
+
+	private static String formatName(byte[] image) throws IOException {
+		try (ImageInputStream stream = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+			return readers.next().getFormatName().toLowerCase();
+		}
+	}
+
+	@Test
+	public void verify_screenshot_is_downscaled_and_reencoded_with_its_type() throws IOException {
+		ImageProcessor processor = new ImageProcessor(400, ImageProcessor.Format.JPEG, 0.7f, false, Executors.newSingleThreadExecutor());
+		byte[] original = screenshot(1600, 900);
+
+		assertThat(processor.accepts("image/png", false), equalTo(true));
+		assertThat(processor.accepts("text/plain", false), equalTo(false));
+		ImageProcessor.Image processed = processor.process(original, "image/png");
+		processor.shutdown();
+
+		assertThat(processed.getMimeType(), equalTo("image/jpeg"));
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(processed.getData()));
+		assertThat(image.getWidth(), equalTo(400));
+		assertThat(image.getHeight(), equalTo(225));
+		assertThat(formatName(processed.getData()), equalTo("jpeg"));
+	}
+
+	@Test
+	public void verify_palette_png_keeps_dimensions_when_no_size_limit() throws IOException {
+		ImageProcessor processor = new ImageProcessor(0, ImageProcessor.Format.PALETTE_PNG, 0.8f, false, Executors.newSingleThreadExecutor());
+		byte[] original = screenshot(300, 200);
+
+		ImageProcessor.Image processed = processor.processImage(original, "image/png");
+		processor.shutdown();
+
+		assertThat(processed.getMimeType(), equalTo("image/png"));
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(processed.getData()));
+		assertThat(image.getWidth(), equalTo(300));
+		assertThat(image.getHeight(), equalTo(200));
+		assertThat(image.getType(), equalTo(BufferedImage.TYPE_BYTE_INDEXED));
+	}
+
+	@Test
+	public void verify_failed_scenario_images_are_kept_in_full_resolution() {
+		ImageProcessor processor = new ImageProcessor(400, ImageProcessor.Format.JPEG, 0.7f, true, Executors.newSingleThreadExecutor());
+
+		assertThat(processor.accepts("image/png", true), equalTo(false));
+		assertThat(processor.accepts("image/png", false), equalTo(true));
+		processor.shutdown();
+	}
+
+	@Test
+	public void verify_broken_image_is_sent_as_is_with_original_type() {
+		ImageProcessor processor = new ImageProcessor(400, ImageProcessor.Format.JPEG, 0.7f, false, Executors.newSingleThreadExecutor());
+		byte[] broken = new byte[] { 1, 2, 3, 4 };
+
+		ImageProcessor.Image processed = processor.process(broken, "image/png");
+		processor.shutdown();
+
+		assertThat(processed.getData(), equalTo(broken));
+		assertThat(processed.getMimeType(), equalTo("image/png"));
+	}
+
+	@Test
+	public void verify_processing_is_turned_off_unless_images_are_embedded_off_test_threads() {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(ImageProcessor.MAX_SIZE_PROPERTY, "400");
+		assertThat(ImageProcessor.fromProperties(new AgentProperties(properties::get)), nullValue());
+
+		properties.put(DeferredReporting.DEFERRED_ENABLED_PROPERTY, Boolean.TRUE.toString());
+		ImageProcessor processor = ImageProcessor.fromProperties(new AgentProperties(properties::get));
+		assertThat(processor, notNullValue());
+		processor.shutdown();
+	}
+}
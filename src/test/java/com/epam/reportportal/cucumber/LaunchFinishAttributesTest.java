@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.integration.TestStepReporter;
+import com.epam.reportportal.cucumber.integration.util.TestUtils;
+import com.epam.reportportal.listeners.ListenerParameters;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.FinishExecutionRQ;
+import com.epam.ta.reportportal.ws.model.attribute.ItemAttributesRQ;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+public class LaunchFinishAttributesTest {
+
+	@CucumberOptions(features = "src/test/resources/features/DummyScenario.feature", glue = {
+			"com.epam.reportportal.cucumber.integration.feature" }, plugin = { "pretty",
+			"com.epam.reportportal.cucumber.integration.TestStepReporter" })
+	public static class DeduplicatingStepReporter extends AbstractTestNGCucumberTests {
+
+	}
+
+	private static final String USER_ATTRIBUTE_KEY = "team";
+	private static final String USER_ATTRIBUTE_VALUE = "reporting";
+
+	private final String launchId = CommonUtils.namedId("launch_");
+	private final String suiteId = CommonUtils.namedId("suite_");
+	private final String testId = CommonUtils.namedId("test_");
+	private final List<String> stepIds = Stream.generate(() -> CommonUtils.namedId("step_")).limit(2).collect(Collectors.toList());
+
+	private final ListenerParameters parameters = TestUtils.standardParameters();
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+	private final ReportPortal reportPortal = ReportPortal.create(client, parameters, executorService);
+
+	@BeforeEach
+	public void initLaunch() {
+		System.setProperty(ReportingPipeline.PIPELINE_ENABLED_PROPERTY, Boolean.TRUE.toString());
+		System.setProperty(EmbeddingDeduplicator.DEDUPLICATION_POLICY_PROPERTY, EmbeddingDeduplicator.Policy.LINK.name());
+		ItemAttributesRQ userAttribute = new ItemAttributesRQ(USER_ATTRIBUTE_KEY, USER_ATTRIBUTE_VALUE);
+		parameters.setAttributes(Collections.singleton(userAttribute));
+		TestUtils.mockLaunch(client, launchId, suiteId, testId, stepIds);
+		TestUtils.mockLogging(client);
+		TestStepReporter.RP.set(reportPortal);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		System.clearProperty(ReportingPipeline.PIPELINE_ENABLED_PROPERTY);
+		System.clearProperty(EmbeddingDeduplicator.DEDUPLICATION_POLICY_PROPERTY);
+		CommonUtils.shutdownExecutorService(executorService);
+	}
+
+	@Test
+	public void verify_launch_finish_keeps_launch_attributes_with_deduplicated_bytes() {
+		TestUtils.runTests(DeduplicatingStepReporter.class);
+
+		ArgumentCaptor<FinishExecutionRQ> finishCaptor = ArgumentCaptor.forClass(FinishExecutionRQ.class);
+		verify(client).finishLaunch(same(launchId), finishCaptor.capture());
+
+		Set<ItemAttributesRQ> attributes = finishCaptor.getValue().getAttributes();
+		assertThat(attributes, notNullValue());
+		List<String> keys = attributes.stream().map(ItemAttributesRQ::getKey).collect(Collectors.toList());
+		assertThat(keys, hasItems(USER_ATTRIBUTE_KEY, "agent", "os", "jvm", "deduplicatedBytes"));
+		ItemAttributesRQ userAttribute = attributes.stream()
+				.filter(a -> USER_ATTRIBUTE_KEY.equals(a.getKey()))
+				.findAny()
+				.orElseThrow(() -> new AssertionError("No user attribute"));
+		assertThat(userAttribute.getValue(), equalTo(USER_ATTRIBUTE_VALUE));
+		assertThat(userAttribute.isSystem(), equalTo(false));
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.integration.TestStepReporter;
+import com.epam.reportportal.cucumber.integration.util.TestUtils;
+import com.epam.reportportal.listeners.ListenerParameters;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.reportportal.service.ReportPortalClient;
+import com.epam.reportportal.util.test.CommonUtils;
+import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
+import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import okhttp3.MultipartBody;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.epam.reportportal.cucumber.integration.util.TestUtils.filterLogs;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs scenarios with the event pipeline and with deferred reporting, both of them handle scenario events off
+ * Cucumber's test threads.
+ */
+public class OffThreadReportingTest {
+
+	@CucumberOptions(features = "src/test/resources/features/TwoScenarioWithLogs.feature", glue = {
+			"com.epam.reportportal.cucumber.integration.log" }, plugin = { "pretty",
+			"com.epam.reportportal.cucumber.integration.TestStepReporter" })
+	public static class OffThreadStepReporter extends AbstractTestNGCucumberTests {
+
+	}
+
+	private static final List<List<String>> SCENARIO_LOGS = Arrays.asList(
+			Arrays.asList("first scenario, first step", "first scenario, second step"),
+			Arrays.asList("second scenario, first step", "second scenario, second step")
+	);
+
+	private final String launchId = CommonUtils.namedId("launch_");
+	private final String suiteId = CommonUtils.namedId("suite_");
+	// a before hook and two steps in each scenario
+	private final List<Pair<String, List<String>>> tests = Stream.generate(() -> Pair.of(CommonUtils.namedId("test_"),
+			Stream.generate(() -> CommonUtils.namedId("step_")).limit(3).collect(Collectors.toList())
+	)).limit(2).collect(Collectors.toList());
+
+	private final ListenerParameters parameters = TestUtils.standardParameters();
+	private final ReportPortalClient client = mock(ReportPortalClient.class);
+	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+	private final ReportPortal reportPortal = ReportPortal.create(client, parameters, executorService);
+
+	@BeforeEach
+	public void initLaunch() {
+		TestUtils.mockLaunch(client, launchId, suiteId, tests);
+		TestUtils.mockLogging(client);
+		TestStepReporter.RP.set(reportPortal);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		System.clearProperty(ReportingPipeline.PIPELINE_ENABLED_PROPERTY);
+		System.clearProperty(DeferredReporting.DEFERRED_ENABLED_PROPERTY);
+		CommonUtils.shutdownExecutorService(executorService);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { ReportingPipeline.PIPELINE_ENABLED_PROPERTY, DeferredReporting.DEFERRED_ENABLED_PROPERTY })
+	@SuppressWarnings("unchecked")
+	public void verify_off_thread_reporting_keeps_item_and_log_order(String modeProperty) {
+		System.setProperty(modeProperty, Boolean.TRUE.toString());
+		TestUtils.runTests(OffThreadStepReporter.class);
+
+		verify(client).startTestItem(any());
+		verify(client, times(2)).startTestItem(same(suiteId), any());
+		ArgumentCaptor<List<MultipartBody.Part>> logCaptor = ArgumentCaptor.forClass(List.class);
+		verify(client, atLeastOnce()).log(logCaptor.capture());
+
+		Set<List<String>> reportedScenarios = new HashSet<>();
+		for (Pair<String, List<String>> test : tests) {
+			ArgumentCaptor<StartTestItemRQ> stepCaptor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+			verify(client, times(3)).startTestItem(same(test.getKey()), stepCaptor.capture());
+			test.getValue().forEach(stepId -> verify(client).finishTestItem(same(stepId), any()));
+			verify(client).finishTestItem(same(test.getKey()), any());
+
+			// scenarios may be started in any order by different threads, so the scenario is recognized by its steps
+			List<StartTestItemRQ> steps = stepCaptor.getAllValues();
+			List<String> expectedLogs = SCENARIO_LOGS.stream()
+					.filter(l -> steps.get(1).getName().contains(l.get(0)))
+					.findAny()
+					.orElseThrow(() -> new AssertionError("Unexpected step: " + steps.get(1).getName()));
+			reportedScenarios.add(expectedLogs);
+
+			assertThat(steps.get(0).getName(), equalTo("Before hooks"));
+			assertThat(steps.get(2).getName(), containsString(expectedLogs.get(1)));
+			for (int i = 1; i < steps.size(); i++) {
+				assertThat(steps.get(i).getStartTime(), greaterThanOrEqualTo(steps.get(i - 1).getStartTime()));
+			}
+
+			List<String> stepIds = test.getValue();
+			List<SaveLogRQ> logs = filterLogs(logCaptor, l -> stepIds.contains(l.getItemUuid()));
+			assertThat(logs, hasSize(3));
+			assertThat(logs.get(0).getItemUuid(), equalTo(stepIds.get(0)));
+			assertThat(logs.get(0).getMessage(), startsWith("Before hook"));
+			assertThat(logs.get(1).getItemUuid(), equalTo(stepIds.get(1)));
+			assertThat(logs.get(1).getMessage(), equalTo(expectedLogs.get(0)));
+			assertThat(logs.get(2).getItemUuid(), equalTo(stepIds.get(2)));
+			assertThat(logs.get(2).getMessage(), equalTo(expectedLogs.get(1)));
+		}
+		assertThat(reportedScenarios, hasSize(SCENARIO_LOGS.size()));
+		verify(client).finishTestItem(same(suiteId), any());
+	}
+}
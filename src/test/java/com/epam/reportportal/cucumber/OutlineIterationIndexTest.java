@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestSourceRead;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class OutlineIterationIndexTest {
+
+	private static final int ROW_NUMBER = 100_000;
+	private static final int FIRST_ROW_LINE = 6;
+
+	private static String generateFeature(int rowNumber) {
+		StringBuilder feature = new StringBuilder("Feature: A huge outline\n");
+		feature.append("  Scenario Outline: Row <n>\n");
+		feature.append("    Given I have parameter <n>\n");
+		feature.append("    Examples:\n");
+		feature.append("      | n |\n");
+		for (int i = 0; i < rowNumber; i++) {
+			feature.append("      | ").append(i).append(" |\n");
+		}
+		return feature.toString();
+	}
+
+	@Test
+	public void verify_outline_iterations_are_resolved_through_flat_line_index() {
+		URI uri = URI.create("file:///huge_outline.feature");
+		CompletableFuture<RunningContext.ParsedFeature> parsedFeature = RunningContext.FeatureContext.parseTestSource(new TestSourceRead(Instant.now(),
+				uri,
+				generateFeature(ROW_NUMBER)
+		));
+
+		AtomicInteger line = new AtomicInteger(FIRST_ROW_LINE);
+		TestCase testCase = mock(TestCase.class, withSettings().stubOnly());
+		when(testCase.getUri()).thenReturn(uri);
+		when(testCase.getLine()).thenAnswer(invocation -> line.get());
+
+		RunningContext.FeatureContext featureContext = new RunningContext.FeatureContext(testCase, -1, parsedFeature);
+		RunningContext.ParsedFeature feature = featureContext.getFeature();
+		int lastRowLine = FIRST_ROW_LINE + ROW_NUMBER - 1;
+
+		// one flat index slot per feature line, no per-row entries
+		assertThat(feature.getLineCount(), equalTo(lastRowLine + 1));
+		RunningContext.ParsedScenario outline = feature.getScenario(FIRST_ROW_LINE);
+		assertThat(outline, notNullValue());
+		assertThat(outline.getExampleLines().length, equalTo(ROW_NUMBER));
+		assertThat(feature.getOutlineIteration(FIRST_ROW_LINE - 1), equalTo(0));
+		assertThat(feature.getOutlineIteration(lastRowLine + 1), equalTo(0));
+
+		for (int i = 0; i < ROW_NUMBER; i++) {
+			int rowLine = FIRST_ROW_LINE + i;
+			assertThat(feature.getScenario(rowLine), sameInstance(outline));
+			assertThat(feature.getOutlineIteration(rowLine), equalTo(i + 1));
+		}
+
+		line.set(lastRowLine);
+		RunningContext.ScenarioContext scenarioContext = featureContext.getScenarioContext(testCase);
+		assertThat(scenarioContext.getOutlineIteration(), equalTo("[" + ROW_NUMBER + "]"));
+	}
+}
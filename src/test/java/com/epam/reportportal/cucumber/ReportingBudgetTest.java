@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import io.reactivex.subjects.MaybeSubject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class ReportingBudgetTest {
+
+	@Test
+	public void verify_unlimited_budget_sends_everything() {
+		ReportingBudget budget = new ReportingBudget(0, 0, 0, ReportingBudget.Policy.DROP_LOGS, 100);
+
+		for (int i = 0; i < 1000; i++) {
+			assertThat(budget.acquireLog(1024, "INFO"), equalTo(true));
+		}
+		assertThat(budget.getDroppedLogs(), equalTo(0L));
+	}
+
+	@Test
+	public void verify_drop_logs_policy_drops_only_low_priority_logs_and_counts_them() {
+		ReportingBudget budget = new ReportingBudget(0, 2, 0, ReportingBudget.Policy.DROP_LOGS, 100);
+
+		assertThat(budget.acquireLog(10, "INFO"), equalTo(true));
+		assertThat(budget.acquireLog(10, "INFO"), equalTo(true));
+		assertThat(budget.acquireLog(20, "INFO"), equalTo(false));
+		assertThat(budget.acquireLog(30, null), equalTo(false));
+		// nothing in flight can release the budget, so an important log is sent over it without waiting
+		assertThat(budget.acquireLog(10, "ERROR"), equalTo(true));
+
+		assertThat(budget.getDroppedLogs(), equalTo(2L));
+		assertThat(budget.getDroppedBytes(), equalTo(50L));
+		assertThat(budget.getOverruns(), equalTo(1L));
+		assertThat(budget.getTimeouts(), equalTo(0L));
+	}
+
+	@Test
+	public void verify_step_with_more_logs_than_the_limit_is_not_blocked() {
+		ReportingBudget budget = new ReportingBudget(0, 2, 0, ReportingBudget.Policy.BLOCK, TimeUnit.MINUTES.toMillis(1));
+
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			for (int i = 0; i < 10; i++) {
+				assertThat(budget.acquireLog(10, "INFO"), equalTo(true));
+			}
+		});
+		assertThat(budget.getOverruns(), equalTo(8L));
+		assertThat(budget.getTimeouts(), equalTo(0L));
+	}
+
+	@Test
+	public void verify_log_waits_for_a_finish_request_in_flight() throws Exception {
+		ReportingBudget budget = new ReportingBudget(0, 1, 0, ReportingBudget.Policy.BLOCK, TimeUnit.SECONDS.toMillis(10));
+		MaybeSubject<String> finish = MaybeSubject.create();
+
+		assertThat(budget.acquireLog(10, "INFO"), equalTo(true));
+		budget.finish(() -> finish);
+		CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> budget.acquireLog(10, "INFO"));
+		Thread.sleep(100);
+		assertThat(blocked.isDone(), equalTo(false));
+
+		finish.onSuccess("finished");
+		assertThat(blocked.get(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(budget.getOverruns(), equalTo(0L));
+		assertThat(budget.getTimeouts(), equalTo(0L));
+	}
+
+	@Test
+	public void verify_log_size_is_counted_in_utf8_bytes() {
+		assertThat(ReportingBudget.byteSize(null), equalTo(0L));
+		assertThat(ReportingBudget.byteSize("log"), equalTo(3L));
+		assertThat(ReportingBudget.byteSize("\u0436\u0443\u0440\u043d\u0430\u043b"), equalTo(12L));
+		assertThat(ReportingBudget.byteSize("\u65e5\u8a8c \ud83d\udcdd"), equalTo(11L));
+	}
+
+	@Test
+	public void verify_logs_are_released_once_the_next_finish_request_is_answered() {
+		ReportingBudget budget = new ReportingBudget(0, 1, 0, ReportingBudget.Policy.DROP_LOGS, 100);
+		MaybeSubject<String> finish = MaybeSubject.create();
+
+		assertThat(budget.acquireLog(10, "INFO"), equalTo(true));
+		budget.finish(() -> finish);
+		assertThat(budget.acquireLog(10, "INFO"), equalTo(false));
+
+		finish.onSuccess("finished");
+		assertThat(budget.acquireLog(10, "INFO"), equalTo(true));
+		assertThat(budget.getDroppedLogs(), equalTo(1L));
+	}
+
+	@Test
+	public void verify_summary_only_policy_keeps_errors_until_budget_recovers() {
+		ReportingBudget budget = new ReportingBudget(0, 4, 0, ReportingBudget.Policy.SUMMARY_ONLY, 100);
+		MaybeSubject<String> finish = MaybeSubject.create();
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(budget.acquireLog(1, "INFO"), equalTo(true));
+		}
+		assertThat(budget.acquireLog(1, "INFO"), equalTo(false));
+		assertThat(budget.acquireLog(1, "WARN"), equalTo(false));
+		assertThat(budget.acquireLog(1, null), equalTo(false));
+		assertThat(budget.acquireLog(1, "ERROR"), equalTo(true));
+		budget.finish(() -> finish);
+		finish.onSuccess("finished");
+
+		assertThat(budget.acquireLog(1, "INFO"), equalTo(true));
+		assertThat(budget.getDroppedLogs(), equalTo(3L));
+		assertThat(budget.getTimeouts(), equalTo(0L));
+	}
+
+	@Test
+	public void verify_item_requests_wait_for_in_flight_items() throws Exception {
+		ReportingBudget budget = new ReportingBudget(1, 0, 0, ReportingBudget.Policy.BLOCK, TimeUnit.SECONDS.toMillis(10));
+		MaybeSubject<String> first = MaybeSubject.create();
+		MaybeSubject<String> second = MaybeSubject.create();
+
+		budget.start(() -> first);
+		CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> budget.start(() -> second));
+		Thread.sleep(100);
+		assertThat(blocked.isDone(), equalTo(false));
+
+		first.onSuccess("item");
+		blocked.get(5, TimeUnit.SECONDS);
+		assertThat(budget.getTimeouts(), equalTo(0L));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import io.cucumber.plugin.event.EventHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ReportingPipelineTest {
+
+	private static final int THREAD_NUMBER = 4;
+	private static final int CONSUMER_NUMBER = 2;
+	private static final int SCENARIO_NUMBER = 100;
+	private static final int EVENT_NUMBER = 100;
+
+	@Test
+	public void verify_pipeline_keeps_event_order_of_each_scenario_and_handles_all_events_before_shutdown() throws Exception {
+		ReportingPipeline pipeline = new ReportingPipeline(16, CONSUMER_NUMBER);
+		Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+		Map<String, Set<String>> consumerThreads = new ConcurrentHashMap<>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_NUMBER);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREAD_NUMBER; i++) {
+			int producer = i;
+			futures.add(executor.submit(() -> IntStream.range(0, SCENARIO_NUMBER).forEach(s -> {
+				String scenario = producer + ":" + s;
+				received.put(scenario, new ArrayList<>());
+				IntStream.range(0, EVENT_NUMBER).forEach(e -> {
+					EventHandler<Integer> handler = event -> {
+						received.get(scenario).add(event);
+						consumerThreads.computeIfAbsent(scenario, k -> ConcurrentHashMap.newKeySet())
+								.add(Thread.currentThread().getName());
+					};
+					if (e == EVENT_NUMBER - 1) {
+						pipeline.publishLast(scenario, handler, e);
+					} else {
+						pipeline.publish(scenario, handler, e);
+					}
+				});
+			})));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		pipeline.shutdown();
+
+		List<Integer> expected = IntStream.range(0, EVENT_NUMBER).boxed().collect(Collectors.toList());
+		assertThat(received.values(), hasSize(THREAD_NUMBER * SCENARIO_NUMBER));
+		received.values().forEach(events -> assertThat(events, equalTo(expected)));
+		// a scenario is handled by a single consumer thread, consumer threads are bounded regardless of running scenarios
+		consumerThreads.values().forEach(threads -> assertThat(threads, contains(startsWith("rp-cucumber-pipeline-"))));
+		assertThat(consumerThreads.values().stream().flatMap(Set::stream).distinct().count(),
+				lessThanOrEqualTo((long) CONSUMER_NUMBER)
+		);
+	}
+
+	@Test
+	public void verify_no_event_is_lost_if_published_concurrently_with_shutdown() throws Exception {
+		ReportingPipeline pipeline = new ReportingPipeline(4, CONSUMER_NUMBER);
+		AtomicInteger handled = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_NUMBER);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREAD_NUMBER; i++) {
+			int producer = i;
+			futures.add(executor.submit(() -> IntStream.range(0, EVENT_NUMBER * 10)
+					.forEach(e -> pipeline.publish(producer, (Integer event) -> handled.incrementAndGet(), e))));
+		}
+		pipeline.shutdown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertThat(handled.get(), equalTo(THREAD_NUMBER * EVENT_NUMBER * 10));
+	}
+
+	@Test
+	public void verify_pipeline_handles_events_in_caller_thread_after_shutdown() {
+		ReportingPipeline pipeline = new ReportingPipeline(16, CONSUMER_NUMBER);
+		pipeline.shutdown();
+		List<String> threads = new ArrayList<>();
+
+		pipeline.publish("scenario", (String event) -> threads.add(Thread.currentThread().getName()), "event");
+
+		assertThat(threads, contains(Thread.currentThread().getName()));
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.integration.util.TestUtils;
+import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.ReportPortal;
+import com.epam.ta.reportportal.ws.model.FinishTestItemRQ;
+import io.cucumber.plugin.event.*;
+import io.reactivex.Maybe;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+
+public class ScenarioContextLookupTest {
+
+	@Test
+	public void verify_scenario_events_are_handled_on_different_threads() throws ExecutionException, InterruptedException {
+		Launch launch = TestUtils.mockSyntheticLaunch(TestUtils.standardParameters());
+		ReportPortal reportPortal = TestUtils.mockReportPortal(launch);
+
+		ScenarioReporter reporter = new ScenarioReporter() {
+			@Override
+			protected ReportPortal buildReportPortal() {
+				return reportPortal;
+			}
+		};
+		TestUtils.SyntheticEventBus bus = new TestUtils.SyntheticEventBus();
+		reporter.setEventPublisher(bus);
+
+		URI uri = URI.create("file:///synthetic/thread_hopping.feature");
+		bus.send(new TestRunStarted(Instant.now()));
+		bus.send(new TestSourceRead(Instant.now(),
+				uri,
+				"Feature: Thread hopping\n  Scenario: Thread hopping scenario\n    Given I have empty step\n"
+		));
+
+		TestCase testCase = TestUtils.syntheticTestCase(uri, 2, "Thread hopping scenario");
+		PickleStepTestStep testStep = TestUtils.syntheticEmptyStep(3);
+
+		Object[] events = new Object[] { new TestCaseStarted(Instant.now(), testCase),
+				new TestStepStarted(Instant.now(), testCase, testStep),
+				new WriteEvent(Instant.now(), testCase, "A log from another thread"),
+				new TestStepFinished(Instant.now(), testCase, testStep, TestUtils.PASSED),
+				new TestCaseFinished(Instant.now(), testCase, TestUtils.PASSED) };
+		// each event is delivered on a new thread
+		for (Object event : events) {
+			ExecutorService executor = Executors.newSingleThreadExecutor();
+			executor.submit(() -> bus.send(event)).get();
+			executor.shutdown();
+		}
+		bus.send(new TestRunFinished(Instant.now()));
+
+		ArgumentCaptor<FinishTestItemRQ> finishCaptor = ArgumentCaptor.forClass(FinishTestItemRQ.class);
+		verify(launch, atLeast(2)).finishTestItem(ArgumentMatchers.<Maybe<String>>any(), finishCaptor.capture());
+		List<FinishTestItemRQ> finishes = finishCaptor.getAllValues();
+		assertThat(finishes.get(0).getStatus(), equalTo("PASSED")); // step
+		assertThat(finishes.get(1).getStatus(), equalTo("PASSED")); // scenario
+		assertThat(reporter.getScenarioContext(testCase), nullValue());
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber;
+
+import com.epam.reportportal.cucumber.integration.util.TestUtils;
+import com.epam.reportportal.service.ReportPortal;
+import io.cucumber.plugin.event.*;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ScenarioContextReleaseTest {
+
+	private static final int FEATURE_NUMBER = 2;
+	private static final int SCENARIO_NUMBER = 3;
+	// References to the parsed feature model and Cucumber objects which a finished scenario must not hold
+	private static final List<String> RELEASED_FIELDS = Arrays.asList("feature",
+			"background",
+			"scenario",
+			"testCase",
+			"currentStepId",
+			"hookStepId",
+			"hookStatus",
+			"text"
+	);
+
+	private static String generateFeature(int scenarioNumber) {
+		StringBuilder feature = new StringBuilder("Feature: Synthetic feature\n");
+		feature.append("  Background:\n");
+		feature.append("    Given I have empty step\n");
+		for (int i = 0; i < scenarioNumber; i++) {
+			feature.append("  Scenario: Synthetic scenario ").append(i).append("\n");
+			feature.append("    Given I have empty step\n");
+		}
+		return feature.toString();
+	}
+
+	private static int scenarioLine(int index) {
+		return 4 + index * 2;
+	}
+
+	private static Object fieldValue(RunningContext.ScenarioContext context, String name) throws ReflectiveOperationException {
+		Field field = RunningContext.ScenarioContext.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return field.get(context);
+	}
+
+	@Test
+	public void verify_scenario_state_is_released_after_scenario_finish() throws ReflectiveOperationException {
+		ReportPortal reportPortal = TestUtils.mockReportPortal(TestUtils.mockSyntheticLaunch(TestUtils.standardParameters()));
+
+		List<RunningContext.ScenarioContext> contexts = new ArrayList<>();
+		ScenarioReporter reporter = new ScenarioReporter() {
+			@Override
+			protected ReportPortal buildReportPortal() {
+				return reportPortal;
+			}
+
+			@Override
+			protected void beforeScenario(RunningContext.FeatureContext featureContext, RunningContext.ScenarioContext scenarioContext) {
+				contexts.add(scenarioContext);
+				super.beforeScenario(featureContext, scenarioContext);
+			}
+		};
+		TestUtils.SyntheticEventBus bus = new TestUtils.SyntheticEventBus();
+		reporter.setEventPublisher(bus);
+
+		String source = generateFeature(SCENARIO_NUMBER);
+		bus.send(new TestRunStarted(Instant.now()));
+		for (int f = 0; f < FEATURE_NUMBER; f++) {
+			URI uri = URI.create("file:///synthetic/feature_" + f + ".feature");
+			bus.send(new TestSourceRead(Instant.now(), uri, source));
+			for (int i = 0; i < SCENARIO_NUMBER; i++) {
+				TestCase testCase = TestUtils.syntheticTestCase(uri, scenarioLine(i), "Synthetic scenario");
+				PickleStepTestStep backgroundStep = TestUtils.syntheticEmptyStep(3);
+				PickleStepTestStep step = TestUtils.syntheticEmptyStep(scenarioLine(i) + 1);
+				bus.send(new TestCaseStarted(Instant.now(), testCase));
+				RunningContext.ScenarioContext context = reporter.getScenarioContext(testCase);
+				assertThat(context, notNullValue());
+				for (String name : RELEASED_FIELDS.subList(0, 4)) {
+					assertThat(name, fieldValue(context, name), notNullValue());
+				}
+				bus.send(new TestStepStarted(Instant.now(), testCase, backgroundStep));
+				bus.send(new TestStepFinished(Instant.now(), testCase, backgroundStep, TestUtils.PASSED));
+				bus.send(new TestStepStarted(Instant.now(), testCase, step));
+				bus.send(new TestStepFinished(Instant.now(), testCase, step, TestUtils.PASSED));
+				bus.send(new TestCaseFinished(Instant.now(), testCase, TestUtils.PASSED));
+
+				assertThat(reporter.getScenarioContext(testCase), nullValue());
+				for (String name : RELEASED_FIELDS) {
+					assertThat(name, fieldValue(context, name), nullValue());
+				}
+				assertThat(context.withBackground(), equalTo(false));
+			}
+		}
+		bus.send(new TestRunFinished(Instant.now()));
+
+		assertThat(contexts, hasSize(FEATURE_NUMBER * SCENARIO_NUMBER));
+	}
+}
@@ -19,6 +19,7 @@ package com.epam.reportportal.cucumber;
 import com.epam.reportportal.cucumber.integration.TestScenarioReporter;
 import com.epam.reportportal.cucumber.integration.TestStepReporter;
 import com.epam.reportportal.cucumber.integration.feature.TestCaseIdOnMethodSteps;
+import com.epam.reportportal.cucumber.integration.feature.TestCaseIdTemplateSteps;
 import com.epam.reportportal.cucumber.integration.util.TestUtils;
 import com.epam.reportportal.listeners.ListenerParameters;
 import com.epam.reportportal.service.ReportPortal;
@@ -65,6 +66,13 @@ public class TestCaseIdTest {
 
 	}
 
+	@CucumberOptions(features = "src/test/resources/features/TestCaseIdTemplate.feature", glue = {
+			"com.epam.reportportal.cucumber.integration.feature" }, plugin = { "pretty",
+			"com.epam.reportportal.cucumber.integration.TestStepReporter" })
+	public static class TemplateStepReporter extends AbstractTestNGCucumberTests {
+
+	}
+
 	private final String launchId = CommonUtils.namedId("launch_");
 	private final String suiteId = CommonUtils.namedId("suite_");
 	private final String testId = CommonUtils.namedId("test_");
@@ -131,6 +139,15 @@ public class TestCaseIdTest {
 		StartTestItemRQ step = captor.getValue();
 		assertThat(step.getTestCaseId(), equalTo(TestCaseIdOnMethodSteps.TEST_CASE_ID));
 	}
-}
 
+	@Test
+	public void verify_templated_test_case_id_is_calculated_for_each_step_argument() {
+		TestUtils.runTests(TemplateStepReporter.class);
+		ArgumentCaptor<StartTestItemRQ> captor = ArgumentCaptor.forClass(StartTestItemRQ.class);
+		verify(client, times(2)).startTestItem(same(testId), captor.capture());
 
+		List<StartTestItemRQ> steps = captor.getAllValues();
+		assertThat(steps.get(0).getTestCaseId(), equalTo(TestCaseIdTemplateSteps.TEST_CASE_ID_PREFIX + "1"));
+		assertThat(steps.get(1).getTestCaseId(), equalTo(TestCaseIdTemplateSteps.TEST_CASE_ID_PREFIX + "2"));
+	}
+}
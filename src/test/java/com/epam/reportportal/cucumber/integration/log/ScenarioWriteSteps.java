@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber.integration.log;
+
+import io.cucumber.java.Before;
+import io.cucumber.java.Scenario;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+
+public class ScenarioWriteSteps {
+	private Scenario scenario;
+
+	@Before
+	public void capture_scenario(Scenario scenario) {
+		this.scenario = scenario;
+	}
+
+	@Given("I write {string} to the scenario")
+	public void i_write_to_the_scenario(String message) {
+		scenario.write(message);
+	}
+
+	@Then("I write {string} to the scenario again")
+	public void i_write_to_the_scenario_again(String message) {
+		scenario.write(message);
+	}
+}
@@ -16,25 +16,34 @@
 
 package com.epam.reportportal.cucumber.integration.util;
 
+import com.epam.reportportal.cucumber.integration.feature.EmptySteps;
 import com.epam.reportportal.listeners.ListenerParameters;
+import com.epam.reportportal.service.Launch;
+import com.epam.reportportal.service.ReportPortal;
 import com.epam.reportportal.service.ReportPortalClient;
 import com.epam.reportportal.utils.http.HttpRequestUtils;
 import com.epam.ta.reportportal.ws.model.BatchSaveOperatingRS;
 import com.epam.ta.reportportal.ws.model.Constants;
+import com.epam.ta.reportportal.ws.model.FinishTestItemRQ;
 import com.epam.ta.reportportal.ws.model.OperationCompletionRS;
+import com.epam.ta.reportportal.ws.model.StartTestItemRQ;
 import com.epam.ta.reportportal.ws.model.item.ItemCreatedRS;
 import com.epam.ta.reportportal.ws.model.launch.StartLaunchRS;
 import com.epam.ta.reportportal.ws.model.log.SaveLogRQ;
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.cucumber.plugin.event.*;
 import io.reactivex.Maybe;
 import okhttp3.MultipartBody;
 import okio.Buffer;
 import org.apache.commons.lang3.tuple.Pair;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.stubbing.Answer;
 import org.testng.TestNG;
 
 import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -42,6 +51,7 @@ import java.util.stream.Collectors;
 import static com.epam.reportportal.util.test.CommonUtils.generateUniqueId;
 import static java.util.Optional.ofNullable;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 /**
@@ -51,6 +61,10 @@ public class TestUtils {
 
 	public static final String TEST_NAME = "TestContainer";
 
+	public static final String EMPTY_STEP_TEXT = "I have empty step";
+	public static final String EMPTY_STEP_CODE_LOCATION = EmptySteps.class.getCanonicalName() + ".i_have_empty_step()";
+	public static final Result PASSED = new Result(Status.PASSED, Duration.ZERO, null);
+
 	public static TestNG runTests(Class<?>... classes) {
 		final TestNG testNG = new TestNG(true);
 		testNG.setTestClasses(classes);
@@ -180,4 +194,78 @@ public class TestUtils {
 				.filter(filter)
 				.collect(Collectors.toList());
 	}
+
+	/**
+	 * Mocks a launch which answers all item requests at once, for reporters driven by {@link SyntheticEventBus}
+	 *
+	 * @param parameters launch parameters
+	 * @return the launch mock
+	 */
+	public static Launch mockSyntheticLaunch(ListenerParameters parameters) {
+		Launch launch = mock(Launch.class);
+		when(launch.start()).thenReturn(Maybe.just("launch"));
+		when(launch.getParameters()).thenReturn(parameters);
+		when(launch.startTestItem(any(StartTestItemRQ.class))).thenReturn(Maybe.just("root"));
+		when(launch.startTestItem(ArgumentMatchers.<Maybe<String>>any(), any(StartTestItemRQ.class))).thenReturn(Maybe.just("item"));
+		when(launch.finishTestItem(ArgumentMatchers.<Maybe<String>>any(), any(FinishTestItemRQ.class))).thenReturn(Maybe.empty());
+		return launch;
+	}
+
+	/**
+	 * @param launch a launch to return
+	 * @return ReportPortal mock which creates the launch
+	 */
+	public static ReportPortal mockReportPortal(Launch launch) {
+		ReportPortal reportPortal = mock(ReportPortal.class);
+		ListenerParameters parameters = launch.getParameters();
+		when(reportPortal.getParameters()).thenReturn(parameters);
+		when(reportPortal.newLaunch(any())).thenReturn(launch);
+		return reportPortal;
+	}
+
+	public static TestCase syntheticTestCase(URI uri, int line, String name) {
+		TestCase testCase = mock(TestCase.class);
+		when(testCase.getUri()).thenReturn(uri);
+		when(testCase.getLine()).thenReturn(line);
+		when(testCase.getName()).thenReturn(name);
+		when(testCase.getTags()).thenReturn(Collections.emptyList());
+		return testCase;
+	}
+
+	/**
+	 * @param line the step line in a feature file
+	 * @return a test step of {@link EmptySteps#i_have_empty_step()} step definition
+	 */
+	public static PickleStepTestStep syntheticEmptyStep(int line) {
+		Step step = mock(Step.class);
+		when(step.getLine()).thenReturn(line);
+		when(step.getText()).thenReturn(EMPTY_STEP_TEXT);
+		PickleStepTestStep testStep = mock(PickleStepTestStep.class);
+		when(testStep.getStep()).thenReturn(step);
+		when(testStep.getDefinitionArgument()).thenReturn(Collections.emptyList());
+		when(testStep.getCodeLocation()).thenReturn(EMPTY_STEP_CODE_LOCATION);
+		return testStep;
+	}
+
+	/**
+	 * Event publisher which delivers events synchronously to the last handler registered for their type
+	 */
+	public static class SyntheticEventBus implements EventPublisher {
+		private final Map<Class<?>, EventHandler<?>> handlers = new HashMap<>();
+
+		@Override
+		public <T> void registerHandlerFor(Class<T> eventType, EventHandler<T> handler) {
+			handlers.put(eventType, handler);
+		}
+
+		@Override
+		public <T> void removeHandlerFor(Class<T> eventType, EventHandler<T> handler) {
+			handlers.remove(eventType);
+		}
+
+		@SuppressWarnings("unchecked")
+		public <T> void send(T event) {
+			((EventHandler<T>) handlers.get(event.getClass())).receive(event);
+		}
+	}
 }
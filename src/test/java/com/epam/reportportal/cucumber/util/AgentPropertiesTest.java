@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.epam.reportportal.cucumber.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class AgentPropertiesTest {
+
+	@Test
+	public void verify_agent_properties_are_trimmed_and_fall_back_to_defaults() {
+		Map<String, String> values = new HashMap<>();
+		values.put("rp.test.string", " value ");
+		values.put("rp.test.blank", "  ");
+		values.put("rp.test.boolean", "true");
+		values.put("rp.test.number", " 42 ");
+		values.put("rp.test.incorrect", "forty two");
+		values.put("rp.test.overflow", "4294967296");
+		AgentProperties properties = new AgentProperties(values::get);
+
+		assertThat(properties.getString("rp.test.string"), equalTo("value"));
+		assertThat(properties.getString("rp.test.blank"), nullValue());
+		assertThat(properties.getString("rp.test.absent", "default"), equalTo("default"));
+		assertThat(properties.getBoolean("rp.test.boolean", false), equalTo(Boolean.TRUE));
+		assertThat(properties.getBoolean("rp.test.absent", true), equalTo(Boolean.TRUE));
+		assertThat(properties.getInt("rp.test.number", 0), equalTo(42));
+		assertThat(properties.getInt("rp.test.incorrect", 7), equalTo(7));
+		assertThat(properties.getInt("rp.test.overflow", 7), equalTo(7));
+		assertThat(properties.getLong("rp.test.overflow", 7L), equalTo(4294967296L));
+	}
+}
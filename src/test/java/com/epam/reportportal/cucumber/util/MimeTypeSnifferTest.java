@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber.util;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class MimeTypeSnifferTest {
+
+	private static byte[] bytes(int... values) {
+		byte[] result = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = (byte) values[i];
+		}
+		return result;
+	}
+
+	private static byte[] text(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static Stream<Arguments> attachments() {
+		return Stream.of(Arguments.of(bytes(0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0), "screenshot", "image/png"),
+				Arguments.of(bytes(0xff, 0xd8, 0xff, 0xe0, 0, 0x10), null, "image/jpeg"),
+				Arguments.of(text("GIF89a...."), "animation.gif", "image/gif"),
+				Arguments.of(text("%PDF-1.4\n"), "report", "application/pdf"),
+				Arguments.of(bytes('P', 'K', 3, 4, 20, 0), "archive.zip", "application/zip"),
+				Arguments.of(bytes('P', 'K', 3, 4, 20, 0), "document.docx", null),
+				Arguments.of(text("\n  {\"key\": [1, 2]}\n"), "fixture.json", "application/json"),
+				Arguments.of(text("<?xml version=\"1.0\"?><root/>"), "page.xml", "application/xml"),
+				Arguments.of(text("2020-01-01 INFO started\n"), "server.log", "text/plain"),
+				Arguments.of(text("plain text without a name"), null, null),
+				Arguments.of(text("a,b\n1,2\n"), "table.csv", null),
+				Arguments.of(bytes(0, 1, 2, 3), "binary.txt", null),
+				Arguments.of(new byte[0], "empty.txt", null)
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("attachments")
+	public void verify_common_signatures_are_recognized(byte[] data, String name, String expectedType) {
+		assertThat(MimeTypeSniffer.sniff(data, name), equalTo(expectedType));
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ReportingClockTest {
+
+	@Test
+	public void verify_item_timeline_is_strictly_increasing_and_dates_are_truncated_to_milliseconds() {
+		Instant instant = Instant.ofEpochSecond(1_600_000_000L, 123_456_789L);
+		ReportingClock.Sequence timeline = new ReportingClock.Sequence();
+
+		assertThat(timeline.next(instant), equalTo(instant));
+		assertThat(timeline.next(instant), equalTo(instant.plusNanos(1_000)));
+		assertThat(timeline.next(instant.minusSeconds(1)), equalTo(instant.plusNanos(2_000)));
+		assertThat(timeline.next(instant.plusSeconds(1)), equalTo(instant.plusSeconds(1)));
+
+		assertThat(ReportingClock.toDate(instant).getTime(), equalTo(1_600_000_000_123L));
+	}
+}
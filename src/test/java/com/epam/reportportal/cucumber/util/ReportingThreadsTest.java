@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 EPAM Systems
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.reportportal.cucumber.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ReportingThreadsTest {
+
+	private static boolean isVirtual(Thread thread) throws Exception {
+		Method isVirtual;
+		try {
+			isVirtual = Thread.class.getMethod("isVirtual");
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+		return Boolean.TRUE.equals(isVirtual.invoke(thread));
+	}
+
+	@Test
+	public void verify_reporting_threads_are_named_daemon_threads_and_virtual_when_supported() throws Exception {
+		ThreadFactory factory = ReportingThreads.threadFactory("rp-test-");
+		CompletableFuture<String> name = new CompletableFuture<>();
+		Thread thread = factory.newThread(() -> name.complete(Thread.currentThread().getName()));
+		assertThat(thread.isDaemon(), equalTo(true));
+		assertThat(isVirtual(thread), equalTo(ReportingThreads.isVirtual()));
+		thread.start();
+
+		assertThat(name.get(10, TimeUnit.SECONDS), startsWith("rp-test-"));
+	}
+
+	@Test
+	public void verify_executor_is_bounded_unless_threads_are_virtual() throws Exception {
+		ExecutorService executor = ReportingThreads.newExecutor("rp-test-", 2);
+		try {
+			if (ReportingThreads.isVirtual()) {
+				assertThat(isVirtual(executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS)), equalTo(true));
+			} else {
+				assertThat(executor, instanceOf(ThreadPoolExecutor.class));
+				assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize(), equalTo(2));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,5 @@
+Feature: Test Case ID template feature
+
+  Scenario: Test Case ID template
+    Given I have a test case ID template with 1 as a parameter
+    Given I have a test case ID template with 2 as a parameter
@@ -0,0 +1,9 @@
+Feature: Test with two scenarios which write logs
+
+  Scenario: The first scenario
+    Given I write "first scenario, first step" to the scenario
+    Then I write "first scenario, second step" to the scenario again
+
+  Scenario: The second scenario
+    Given I write "second scenario, first step" to the scenario
+    Then I write "second scenario, second step" to the scenario again